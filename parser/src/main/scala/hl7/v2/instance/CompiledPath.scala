@@ -0,0 +1,119 @@
+package hl7.v2.instance
+
+/**
+  * A path compiled into its position and instance steps
+  *
+  * Step `i` selects the children at position `positions(i)` and instance
+  * `instances(i)`, or all instances if `instances(i)` is `CompiledPath.*`.
+  * A compiled path with no step denotes the context itself (path ".").
+  */
+final class CompiledPath private (
+  val path: String,
+  positions: Array[Int],
+  instances: Array[Int],
+  offsets: Array[Int]) {
+
+  /**
+    * Returns the number of steps
+    */
+  def length: Int = positions.length
+
+  /**
+    * Returns the position of the step `i`
+    */
+  def position(i: Int): Int = positions(i)
+
+  /**
+    * Returns the instance of the step `i` or `CompiledPath.*`
+    */
+  def instance(i: Int): Int = instances(i)
+
+  /**
+    * Returns true if the step `i` selects all instances
+    */
+  def isWildcard(i: Int): Boolean = instances(i) == CompiledPath.*
+
+  /**
+    * Returns the sub path starting at the step `i`
+    */
+  def subPath(i: Int): String = if (i == 0) path else path.substring(offsets(i))
+
+  override def toString: String = path
+
+  override def equals(o: Any): Boolean = o match {
+    case p: CompiledPath => p.path == path
+    case _ => false
+  }
+
+  override def hashCode: Int = path.hashCode
+}
+
+object CompiledPath {
+
+  /**
+    * The instance of a step selecting all instances
+    */
+  val * : Int = -1
+
+  /**
+    * The maximum number of compiled paths kept in the cache
+    */
+  val cacheSize = 10000
+
+  /**
+    * The compiled paths indexed by path
+    */
+  private val cache = new java.util.concurrent.ConcurrentHashMap[String, CompiledPath]
+
+  /**
+    * Returns the compiled form of the path. Compiled paths are cached without
+    * locking, the cache is emptied once it holds `cacheSize` paths. Callers
+    * evaluating the same path repeatedly should hold on to the compiled path
+    * rather than rely on the cache.
+    */
+  @throws[Error]("if the path is invalid")
+  def apply(path: String): CompiledPath = {
+    val cached = cache.get(path)
+    if (cached != null) cached
+    else {
+      val p = compile(path)
+      if (cache.size >= cacheSize) cache.clear()
+      val previous = cache.putIfAbsent(path, p)
+      if (previous == null) p else previous
+    }
+  }
+
+  /**
+    * Compiles the path without looking at the cache
+    */
+  @throws[Error]("if the path is invalid")
+  def compile(path: String): CompiledPath =
+    if (path == ".") new CompiledPath(path, Array(), Array(), Array())
+    else {
+      val positions = Array.newBuilder[Int]
+      val instances = Array.newBuilder[Int]
+      val offsets   = Array.newBuilder[Int]
+      val n = path.length
+      var i = 0
+      def invalid = new Error(s"Invalid Path '$path'")
+      def number(): Int = {
+        val start = i
+        if (i >= n || path.charAt(i) < '1' || path.charAt(i) > '9') throw invalid
+        while (i < n && path.charAt(i) >= '0' && path.charAt(i) <= '9') i += 1
+        path.substring(start, i).toInt
+      }
+      def expect(c: Char): Unit =
+        if (i < n && path.charAt(i) == c) i += 1 else throw invalid
+      var more = true
+      while (more) {
+        offsets += i
+        positions += number()
+        expect('[')
+        if (i < n && path.charAt(i) == '*') { i += 1; instances += * }
+        else instances += number()
+        expect(']')
+        if (i == n) more = false else expect('.')
+      }
+      new CompiledPath(path, positions.result(), instances.result(), offsets.result())
+    }
+}
@@ -15,17 +15,26 @@ object DataElement {
     */
   def field(d: Datatype, r: Req, l: Location, v: String, i: Int)
            (implicit s: Separators): Option[Field] =
-    v matches emptyField(s.cs, s.ss) match {
+    field(d, r, l, v, 0, v.length, i)
+
+  /**
+    * Creates and returns a field object from the range
+    * `from` (inclusive) `to` (exclusive) of the line
+    */
+  private[instance] def field(d: Datatype, r: Req, l: Location, line: String,
+                              from: Int, to: Int, i: Int)
+                             (implicit s: Separators): Option[Field] =
+    Syntax.isEmptyField(s.cs, s.ss, line, from, to) match {
       case true  => None
       case false => Some {
         d match {
-          case vr: Varies => UnresolvedField(vr, r, l, i,Text(v))
-          case p: Primitive => SimpleField(p, r, l, i, Value(p, v))
-          case c: Composite => if(isNull(v)){
+          case vr: Varies => UnresolvedField(vr, r, l, i,Text(line.substring(from, to)))
+          case p: Primitive => SimpleField(p, r, l, i, Value(p, line.substring(from, to)))
+          case c: Composite => if(isNull(line, from, to)){
             NULLComplexField(c,r,l,i)
           }
           else {
-            val (hasExtra, components) = children(l, c.components, v, s.cs)
+            val (hasExtra, components) = children(l, c.components, line, from, to, s.cs, 2)
             ComplexField(c, r, l, i, components, hasExtra) 
           }
         }
@@ -42,13 +51,18 @@ object DataElement {
     */
   def component(d: Datatype, r: Req, l: Location, v: String)
                        (implicit s: Separators): Option[Component] =
-    v matches emptyComponent( s.ss ) match {
+    component(d, r, l, v, 0, v.length, 2)
+
+  private def component(d: Datatype, r: Req, l: Location, line: String,
+                        from: Int, to: Int, level: Int)
+                       (implicit s: Separators): Option[Component] =
+    Syntax.isEmptyComponent(s.ss, line, from, to) match {
       case true  => None
       case false => Some {
         d match {
-          case p: Primitive => SimpleComponent(p, r, l, Value(p, v))
+          case p: Primitive => SimpleComponent(p, r, l, Value(p, line.substring(from, to)))
           case c: Composite =>
-            val (hasExtra, x) = children(l, c.components, v, s.ss)
+            val (hasExtra, x) = children(l, c.components, line, from, to, s.ss, level + 1)
             val components = x.asInstanceOf[List[SimpleComponent]]
             ComplexComponent(c, r, l, components, hasExtra)
           case _ => throw new Error("Invalid datatype " + d.name)
@@ -59,36 +73,31 @@ object DataElement {
   /**
     * Creates and returns the list of components
     */
-  private def children(l: Location, ml: List[CM], v: String, sep: Char)
+  private def children(l: Location, ml: List[CM], line: String, from: Int,
+                       to: Int, sep: Char, level: Int)
                       (implicit s: Separators): (Boolean, List[Component]) = {
-    val max = ml.size
-    val vs = split(sep, v, l.column)
-    val hasExtra = vs.size > max
-    val _children = ml zip vs map { t =>
-      val (m, (col, vv)) = t
+    val vs = Spans.level(level).split(sep, line, from, to)
+    val hasExtra = vs.size > ml.size
+    val _children = List.newBuilder[Component]
+    var models = ml
+    var k = 0
+    while (models.nonEmpty && k < vs.size) {
+      val m = models.head
+      val start = vs.start(k)
+      val end   = vs.end(k)
       val pos = m.req.position
-      val loc = l.copy( eType(l.path), desc=m.name, path=s"${l.path}.$pos", column=col, uidPath = s"${l.uidPath}.$pos" )
-      component( m.datatype, m.req, loc, vv )
+      val loc = l.component( m.name, pos, l.column + start - from )
+      component( m.datatype, m.req, loc, line, start, end, level ) foreach { _children += _ }
+      models = models.tail
+      k += 1
     }
-    (hasExtra, _children.flatten)
+    (hasExtra, _children.result())
   }
 
-  private def eType(p: String): EType =
-    if ( p.drop(4).split("\\.").length == 1 ) EType.Component else EType.SubComponent
-
-  /**
-    * Returns if the value is Null i.e. ""
-    */
-  private def isNull(v: String) = v == Value.NULL
-
-  /**
-    * Regular expression to match an empty component
-    */
-  private def emptyComponent(ss: Char) = s"(?:\\s*$ss*\\s*)*"
-
   /**
-    * Regular expression to match an empty field
+    * Returns if the value between `from` and `to` is Null i.e. ""
     */
-  private def emptyField(cs: Char, ss: Char) = s"(:?\\s|\\Q$cs\\E|\\Q$ss\\E)*"
+  private def isNull(line: String, from: Int, to: Int) =
+    to - from == Value.NULL.length && line.startsWith(Value.NULL, from)
 
 }
@@ -53,6 +53,27 @@ trait Complex extends Element {
     * and the last, the requirement for the last position.
     */
   def reqs: List[Req]
+
+  /**
+    * The children indexed by position. The entry `i` holds the
+    * children at the position `i` in the order of `children`.
+    */
+  private lazy val childrenByPosition: Array[List[Element]] = {
+    val max = children.foldLeft(0) { (acc, x) => math.max(acc, x.position) }
+    val index = Array.fill[List[Element]](max + 1)(Nil)
+    children.reverseIterator foreach { x =>
+      if( x.position >= 0 ) index(x.position) = x :: index(x.position)
+    }
+    index
+  }
+
+  /**
+    * Returns the children at the specified position
+    */
+  def childrenAt(position: Int): List[Element] =
+    if( position < 0 ) children filter ( _.position == position )
+    else if( position < childrenByPosition.length ) childrenByPosition(position)
+    else Nil
 }
 
 //==============================================================================
@@ -1,7 +1,5 @@
 package hl7.v2.instance
 
-import scala.annotation.tailrec
-
 trait EscapeSeqHandler {
 
   /**
@@ -27,42 +25,46 @@ trait EscapeSeqHandler {
   }
 
   /**
-    * Returns a new string with HL7 basic escape sequence replaced
+    * Returns a new string with HL7 basic escape sequence replaced. The
+    * string is scanned once and returned as is if it does not contain
+    * the escape character.
     * @param s - The string to be un-escaped
     * @param separators - The separators
     * @return A new string with HL7 basic escape sequence replaced
     */
   def unescape(s: String)(implicit  separators: Separators): String = {
-
-    val( fs, cs, rs, ec, ss, otc) = Separators.unapply( separators ).get
-
-    val escapeTruncation = otc match { case None => false case _ => true }
-    val efs = s"${ec}F$ec"
-    val ecs = s"${ec}S$ec"
-    val ess = s"${ec}T$ec"
-    val ers = s"${ec}R$ec"
-    val eec = s"${ec}E$ec"
-    val etc = s"${ec}P$ec"
-
-    @tailrec
-    def f(sb: StringBuilder, s: String): String =
-      s span ( _ != ec ) match {
-        case (x, "") => sb.append(x).toString()
-        case (x, y) if y.take(3) == efs => f( sb.append(x).append(fs), y drop 3 )
-        case (x, y) if y.take(3) == ecs => f( sb.append(x).append(cs), y drop 3 )
-        case (x, y) if y.take(3) == ess => f( sb.append(x).append(ss), y drop 3 )
-        case (x, y) if y.take(3) == ers => f( sb.append(x).append(rs), y drop 3 )
-        case (x, y) if y.take(3) == eec => f( sb.append(x).append(ec), y drop 3 )
-        case (x, y) if escapeTruncation && y.take(3) == etc =>
-          f( sb.append(x).append( otc.get ), y drop 3 )
-        case (x, y) => f( sb.append(x).append(ec), y drop 1 )
+    val ec = separators.ec
+    val first = s.indexOf(ec.toInt)
+    if (first < 0) s
+    else {
+      val sb = new java.lang.StringBuilder(s.length)
+      sb.append(s, 0, first)
+      var i = first
+      while (i < s.length) {
+        val c = s.charAt(i)
+        if (c == ec && i + 2 < s.length && s.charAt(i + 2) == ec) {
+          s.charAt(i + 1) match {
+            case 'F' => sb.append(separators.fs); i += 3
+            case 'S' => sb.append(separators.cs); i += 3
+            case 'T' => sb.append(separators.ss); i += 3
+            case 'R' => sb.append(separators.rs); i += 3
+            case 'E' => sb.append(ec); i += 3
+            case 'P' if separators.tc.isDefined => sb.append(separators.tc.get); i += 3
+            case _ => sb.append(ec); i += 1
+          }
+        } else {
+          sb.append(c)
+          i += 1
+        }
       }
-
-    f( new StringBuilder, s )
+      sb.toString
+    }
   }
 
 }
 
+object EscapeSeqHandler extends EscapeSeqHandler
+
 //This code is a bogus: \S\F\F\ will unescaped as \S|F\ instead of ^F|
 /*def unescape(s: String)(implicit  separators: Separators): String = {
   val( fs, cs, rs, ec, ss, otc) = Separators.unapply( separators ).get
@@ -2,20 +2,102 @@ package hl7.v2.instance
 
 /**
   * Class representing the location of an element
+  *
+  * The location of a field or a component only keeps a pointer to the
+  * location of its parent, its position and its instance number. Its
+  * path, uid path and pretty string are built the first time they are
+  * used which, in practice, only happens for the locations that end up
+  * in a report. Equality, hash code and string representation are the
+  * ones of a case class with the fields (eType, desc, path, line, column,
+  * uidPath).
   */
-case class Location(
+final class Location private (
+    val eType: EType,
+    val desc: String,
+    val line: Int,
+    val column: Int,
+    parent: Location,
+    position: Int,
+    instance: Int,
+    _path: String,
+    _uidPath: String
+  ) extends Product with Serializable {
+
+  lazy val path: String =
+    if (parent eq null) _path
+    else if (eType == EType.Field) s"${parent.path}-$position"
+    else s"${parent.path}.$position"
+
+  lazy val uidPath: String =
+    if (parent eq null) _uidPath
+    else if (eType == EType.Field) s"${parent.uidPath}-$position[$instance]"
+    else s"${parent.uidPath}.$position"
+
+  lazy val prettyString = s"$eType $path ($desc)"
+
+  /**
+    * Returns the location of the field at the specified position
+    * and instance whose parent is this location
+    */
+  def field(desc: String, position: Int, instance: Int, column: Int): Location =
+    new Location(EType.Field, desc, line, column, this, position, instance, null, null)
+
+  /**
+    * Returns the location of the component or sub-component at the
+    * specified position whose parent is this location
+    */
+  def component(desc: String, position: Int, column: Int): Location = {
+    val t = if (eType == EType.Field) EType.Component else EType.SubComponent
+    new Location(t, desc, line, column, this, position, 1, null, null)
+  }
+
+  def copy(
+    eType: EType = eType,
+    desc: String = desc,
+    path: String = path,
+    line: Int = line,
+    column: Int = column,
+    uidPath: String = uidPath
+  ): Location = Location(eType, desc, path, line, column, uidPath)
+
+  override def productPrefix: String = "Location"
+
+  def productArity: Int = 6
+
+  def productElement(n: Int): Any = n match {
+    case 0 => eType
+    case 1 => desc
+    case 2 => path
+    case 3 => line
+    case 4 => column
+    case 5 => uidPath
+    case _ => throw new IndexOutOfBoundsException(n.toString)
+  }
+
+  def canEqual(that: Any): Boolean = that.isInstanceOf[Location]
+
+  override def equals(that: Any): Boolean = that match {
+    case x: Location => (this eq x) || (eType == x.eType && desc == x.desc &&
+      line == x.line && column == x.column && path == x.path && uidPath == x.uidPath)
+    case _ => false
+  }
+
+  override def hashCode: Int = scala.util.hashing.MurmurHash3.productHash(this)
+
+  override def toString: String = scala.runtime.ScalaRunTime._toString(this)
+}
+
+object Location {
+
+  def apply(
     eType: EType,
     desc: String,
     path: String,
     line: Int,
     column: Int,
-    uidPath : String 
-  ) {
-  val prettyString = s"$eType $path ($desc)"
+    uidPath: String
+  ) : Location = new Location(eType, desc, line, column, null, 0, 0, path, uidPath)
 
-}
-
-object Location {
   def apply(
     eType: EType,
     desc: String,
@@ -25,6 +107,7 @@ object Location {
   ) : Location = {
     Location(eType,desc,path,line,column,path)
   }
-}
-
 
+  def unapply(l: Location): Option[(EType, String, String, Int, Int, String)] =
+    Some((l.eType, l.desc, l.path, l.line, l.column, l.uidPath))
+}
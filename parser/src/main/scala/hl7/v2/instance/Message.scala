@@ -31,17 +31,27 @@ case class Message(
     data
   }
 
+  /**
+    * Returns the message in ER7 format, the segments are separated by a
+    * line feed. The values of the simple fields and components whose path
+    * matches a key of `toBeReplaced` (see `comparePath`) are replaced.
+    */
   def printString(toBeReplaced: Option[Map[String,String]] = None): String = {
-    var message = ""
+    val sb = new java.lang.StringBuilder(1024)
+    print(sb, toBeReplaced)
+    sb.toString
+  }
+
+  /**
+    * Writes the message to `out` in one pass, the output is the one of `printString`
+    */
+  def print(out: Appendable, toBeReplaced: Option[Map[String,String]]): Unit = {
+    val w = new ER7Writer(out, separators, ER7Writer.replacements(toBeReplaced))
     var isFirst = true
     for(segOrGroup <- children) {
-      message+=segOrGroupAsString(segOrGroup,isFirst,toBeReplaced)
-      isFirst=false
-    }
-    if (message.endsWith("\n")) {
-      message = message.substring(0,message.length-"\n".length)
+      w.segOrGroup(segOrGroup, isFirst, replace = true)
+      isFirst = false
     }
-    message
   }
 
   def findFieldsInSegment(req: Req, fieldList: List[Field]) : ArrayBuffer[Field] = {
@@ -55,43 +65,11 @@ case class Message(
   }
 
   def segOrGroupAsString(segOrGroup: SegOrGroup, isFirstSegOrGroup: Boolean,toBeReplaced: Option[Map[String,String]] = None) : String = {
-    if(segOrGroup.isInstanceOf[Group]){
-      var res = ""
-      for(subSegOrGroup <- (segOrGroup.asInstanceOf[Group]).children){
-        res += segOrGroupAsString(subSegOrGroup,false)
-      }
-      res
-    } else {
-      val segment = segOrGroup.asInstanceOf[Segment]
-      var res = segment.model.ref.name
-      if(!isFirstSegOrGroup){
-        res+=separators.fs
-      }
-      var isFirst = true
-      for (field <- segment.model.ref.fields) {
-        val fieldsInSegment = findFieldsInSegment(field.req,segment.children)
-        if(fieldsInSegment.length>0){
-          if(!isFirst) {
-            res += separators.fs
-          }
-          var isFirstFieldInSegment = true
-          for(fieldInSegment <- fieldsInSegment){
-            if(!isFirstFieldInSegment){
-              res += separators.rs
-            }
-            res += fieldAsString(fieldInSegment,toBeReplaced)
-            isFirstFieldInSegment=false
-          }
-          isFirst=false
-        } else {
-          res += separators.fs
-        }
-      }
-      while(res.endsWith(""+separators.fs)){
-        res = res.substring(0,res.length-1)
-      }
-      res+"\n"
-    }
+    val sb = new java.lang.StringBuilder(256)
+    val w = new ER7Writer(sb, separators, ER7Writer.replacements(toBeReplaced))
+    w.segOrGroup(segOrGroup, isFirstSegOrGroup, replace = true)
+    if (sb.length > 0) sb.append('\n')
+    sb.toString
   }
 
   def findSimpleComponentInField(req:Req,components:List[Component]):Option[Component]={
@@ -103,45 +81,10 @@ case class Message(
     None
   }
 
-  def fieldAsString(field: Field,toBeReplaced: Option[Map[String,String]] = None): String ={
-    if(field.isInstanceOf[ComplexField]){
-      val complexField = field.asInstanceOf[ComplexField]
-      var res = ""
-      var isFirst = true
-      for(component <- complexField.datatype.components){
-
-        var componentInField = findSimpleComponentInField(component.req,complexField.children)
-        if(!componentInField.isEmpty){
-          if(!isFirst){
-            res+=separators.cs
-          }
-          res += componentAsString(componentInField.get,toBeReplaced)
-          isFirst = false
-        } else {
-          //if(component.req.usage!="X") {
-            res += separators.cs
-          //}
-        }
-      }
-      while(res.endsWith(""+separators.cs)){
-        res = res.substring(0,res.length-1)
-      }
-      res
-    } else {
-      val simpleField = field.asInstanceOf[SimpleField]
-      if(!toBeReplaced.isEmpty){
-        val map = toBeReplaced.get
-        for(key <- map.keys){
-          if(comparePath(key,simpleField.location.path)){
-            return map.get(key).get
-          }
-          /*else if(simpleField.req.description.startsWith(key)){
-            return map.get(key).get
-          }*/
-        }
-      }
-      simpleField.value.raw
-    }
+  def fieldAsString(field: Field,toBeReplaced: Option[Map[String,String]] = None): String = {
+    val w = new ER7Writer(new java.lang.StringBuilder, separators, ER7Writer.replacements(toBeReplaced))
+    w.field(field, replace = true)
+    w.buffer.toString
   }
 
   def comparePath(fieldName:String,path:String):Boolean={
@@ -154,33 +97,9 @@ case class Message(
   }
 
   def componentAsString(component: Component,toBeReplaced: Option[Map[String,String]] = None):String = {
-    if(component.isInstanceOf[ComplexComponent]){
-      var res = ""
-      val complexComponent = component.asInstanceOf[ComplexComponent]
-      var isFirst=true
-      for(simpleComponent <- complexComponent.children){
-        if(!isFirst){
-          res += separators.ss
-        }
-        res += componentAsString(simpleComponent)
-        isFirst = false
-      }
-      res
-    } else {
-      val simpleComponent = component.asInstanceOf[SimpleComponent]
-      if(!toBeReplaced.isEmpty){
-        val map = toBeReplaced.get
-        for(key <- map.keys){
-          if(comparePath(key,simpleComponent.location.path)){
-            return map.get(key).get
-          }
-          /*if(simpleComponent.req.description.startsWith(key)){
-            return map.get(key).get
-          }*/
-        }
-      }
-      simpleComponent.value.raw
-    }
+    val w = new ER7Writer(new java.lang.StringBuilder, separators, ER7Writer.replacements(toBeReplaced))
+    w.component(component, replace = true)
+    w.buffer.toString
   }
 
   def findDataInComponent(component: Component, inData: Map[String, String], toBeFound: List[String]): Map[String,String] = {
@@ -243,3 +162,124 @@ case class Message(
   }
 
 }
+
+/**
+  * Writes segments in ER7 format
+  *
+  * A segment is built in a reusable buffer, its trailing field separators
+  * and the trailing component separators of its fields are removed, then
+  * it is written to the output. Segments are separated by a line feed.
+  * The children of groups and the sub-components are written without
+  * replacement, as the string concatenation did.
+  *
+  * @param out          - The output
+  * @param separators   - The separators of the message
+  * @param replacements - The replacement values by path (see `replacements`)
+  */
+private[instance] final class ER7Writer(out: Appendable, separators: Separators,
+                                        replacements: Map[String, String]) {
+
+  val buffer = new java.lang.StringBuilder(256)
+
+  private var pending = false
+
+  def segOrGroup(e: SegOrGroup, isFirst: Boolean, replace: Boolean): Unit = e match {
+    case g: Group   => g.children foreach { c => segOrGroup(c, isFirst = false, replace = false) }
+    case s: Segment => segment(s, isFirst, replace)
+  }
+
+  def segment(segment: Segment, isFirst: Boolean, replace: Boolean): Unit = {
+    buffer.setLength(0)
+    buffer.append(segment.model.ref.name)
+    if (!isFirst) buffer.append(separators.fs)
+    val fields = ER7Writer.byPosition[Field](segment.children, _.req.position)
+    var isFirstField = true
+    for (model <- segment.model.ref.fields) {
+      val fs = ER7Writer.at(fields, model.req.position) filter { _.req == model.req }
+      if (fs.nonEmpty) {
+        if (!isFirstField) buffer.append(separators.fs)
+        var isFirstInstance = true
+        for (f <- fs) {
+          if (!isFirstInstance) buffer.append(separators.rs)
+          field(f, replace)
+          isFirstInstance = false
+        }
+        isFirstField = false
+      } else buffer.append(separators.fs)
+    }
+    strip(0, separators.fs)
+    if (pending) out.append('\n')
+    out.append(buffer)
+    pending = true
+  }
+
+  def field(field: Field, replace: Boolean): Unit = field match {
+    case c: ComplexField =>
+      val start = buffer.length
+      val components = ER7Writer.byPosition[Component](c.children, _.req.position)
+      var isFirst = true
+      for (model <- c.datatype.components) {
+        ER7Writer.at(components, model.req.position) find { _.req == model.req } match {
+          case Some(x) =>
+            if (!isFirst) buffer.append(separators.cs)
+            component(x, replace)
+            isFirst = false
+          case None => buffer.append(separators.cs)
+        }
+      }
+      strip(start, separators.cs)
+    case _ =>
+      val s = field.asInstanceOf[SimpleField]
+      buffer.append(value(s.location, s.value, replace))
+  }
+
+  def component(component: Component, replace: Boolean): Unit = component match {
+    case c: ComplexComponent =>
+      var isFirst = true
+      for (s <- c.children) {
+        if (!isFirst) buffer.append(separators.ss)
+        this.component(s, replace = false)
+        isFirst = false
+      }
+    case _ =>
+      val s = component.asInstanceOf[SimpleComponent]
+      buffer.append(value(s.location, s.value, replace))
+  }
+
+  private def value(l: Location, v: Value, replace: Boolean): String =
+    if (!replace || replacements.isEmpty) v.raw
+    else replacements.getOrElse(l.path.replace('.', '-'), v.raw)
+
+  private def strip(from: Int, c: Char): Unit =
+    while (buffer.length > from && buffer.charAt(buffer.length - 1) == c)
+      buffer.setLength(buffer.length - 1)
+}
+
+private[instance] object ER7Writer {
+
+  /**
+    * Returns the replacement values keyed by path. As in `comparePath`, the
+    * zeros of the keys are ignored and the first matching key wins.
+    */
+  def replacements(toBeReplaced: Option[Map[String, String]]): Map[String, String] =
+    toBeReplaced match {
+      case None    => Map.empty
+      case Some(m) => m.foldLeft(Map.empty[String, String]) { case (acc, (k, v)) =>
+        val key = k.filterNot(_ == '0')
+        if (acc contains key) acc else acc.updated(key, v)
+      }
+    }
+
+  /**
+    * Groups the elements by position, the order of the elements is kept
+    */
+  def byPosition[A](xs: List[A], position: A => Int): Array[List[A]] = {
+    val n = xs.foldLeft(0) { (m, x) => math.max(m, position(x)) }
+    val a = Array.fill[List[A]](n + 1)(Nil)
+    xs.reverseIterator foreach { x => a(position(x)) = x :: a(position(x)) }
+    a
+  }
+
+  def at[A](a: Array[List[A]], position: Int): List[A] =
+    if (position >= 0 && position < a.length) a(position) else Nil
+}
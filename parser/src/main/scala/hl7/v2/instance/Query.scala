@@ -15,32 +15,40 @@ object Query {
   def queryAsSimple(context: Element, path: String): Try[List[Simple]] = {
     query( context, path ) flatMap asSimple
   }
+
+  /**
+   * Query the context for the specified compiled path and
+   * attempt to cast the result as a sequence of simple.
+   */
+  def queryAsSimple(context: Element, path: CompiledPath): Try[List[Simple]] =
+    query( context, path ) flatMap asSimple
     
 
   /**
    * Query the context for the specified path.
    */
-  def query( context: Element, path: String ): Try[List[Element]] = Try {
-    if(path.equals(".")) List(context)
-    else if( Path.isValid(path) ) _query(context, path)
-    else throw new Error(s"Invalid Path '$path'")
-  }
+  def query( context: Element, path: String ): Try[List[Element]] =
+    Try( CompiledPath(path) ) flatMap { p => query(context, p) }
 
-  @throws[Error]("if the path is invalid or unreachable")
-  private def _query(context: Element, path: String): List[Element] = path match {
-    case Path.extractor(position, instance, subPath) =>
-      context match {
-        case s: Simple  => throw new Error(s"Unreachable Path '$path'")
-        case c: Complex =>
-          val list =  children( c, position, instance )
-          if( subPath == null ) list
-          else list.foldLeft( List[Element]() ) { (acc, child) =>
-            acc ++ _query(child, subPath)
-          }
-      }
-    case _ => throw new Error(s"Invalid Path '$path'")
+  /**
+   * Query the context for the specified compiled path.
+   */
+  def query( context: Element, path: CompiledPath ): Try[List[Element]] = Try {
+    if( path.length == 0 ) List(context) else _query(context, path, 0)
   }
 
+  @throws[Error]("if the path is unreachable")
+  private def _query(context: Element, path: CompiledPath, step: Int): List[Element] =
+    context match {
+      case s: Simple  => throw new Error(s"Unreachable Path '${path.subPath(step)}'")
+      case c: Complex =>
+        val list = children( c, path.position(step), path.instance(step) )
+        if( step == path.length - 1 ) list
+        else list.foldLeft( List[Element]() ) { (acc, child) =>
+          acc ++ _query(child, path, step + 1)
+        }
+    }
+
   /**
    * Convert a sequence of `Element' to a sequence of `Simple' element
    */
@@ -52,10 +60,7 @@ object Query {
    * Returns the children at the specified position and instance
    */
   private
-  def children(c: Complex, position: String, instance: String): List[Element] =
-    if( "*" == instance )
-      c.children filter ( _.position == position.toInt )
-    else c.children.filter { cc =>
-      cc.position == position.toInt && cc.instance == instance.toInt
-    }
+  def children(c: Complex, position: Int, instance: Int): List[Element] =
+    if( CompiledPath.* == instance ) c.childrenAt(position)
+    else c.childrenAt(position) filter ( _.instance == instance )
 }
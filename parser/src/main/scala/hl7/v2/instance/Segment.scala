@@ -6,14 +6,78 @@ import scala.util.Try
 
 /**
   * Class representing a segment
+  *
+  * The fields of a segment created with `Segment.lazily` are built
+  * from the segment line the first time they are accessed. An error
+  * raised while building them is thrown by `children` and `hasExtra`,
+  * and again on every following access. Equality, hash code and string
+  * representation are the ones of a case class with the fields
+  * (model, location, instance, children, hasExtra).
   */
-case class Segment (
-    model: SM,
-    location: Location,
-    instance: Int,
-    children: List[Field],
-    hasExtra: Boolean
-) extends SegOrGroup
+final class Segment private (
+    val model: SM,
+    val location: Location,
+    val instance: Int,
+    private[this] var _children: List[Field],
+    private[this] var _hasExtra: Boolean,
+    @volatile private[this] var content: () => (List[Field], Boolean)
+) extends SegOrGroup with Product with Serializable {
+
+  def children: List[Field] = {
+    if (content ne null) load()
+    _children
+  }
+
+  def hasExtra: Boolean = {
+    if (content ne null) load()
+    _hasExtra
+  }
+
+  /**
+    * Builds the fields of a lazy segment once
+    */
+  private def load(): Unit = synchronized {
+    if (content ne null) {
+      val (cs, extra) = content()
+      _children = cs
+      _hasExtra = extra
+      content = null
+    }
+  }
+
+  def copy(
+    model: SM = model,
+    location: Location = location,
+    instance: Int = instance,
+    children: List[Field] = children,
+    hasExtra: Boolean = hasExtra
+  ): Segment = Segment(model, location, instance, children, hasExtra)
+
+  override def productPrefix: String = "Segment"
+
+  def productArity: Int = 5
+
+  def productElement(n: Int): Any = n match {
+    case 0 => model
+    case 1 => location
+    case 2 => instance
+    case 3 => children
+    case 4 => hasExtra
+    case _ => throw new IndexOutOfBoundsException(n.toString)
+  }
+
+  def canEqual(that: Any): Boolean = that.isInstanceOf[Segment]
+
+  override def equals(that: Any): Boolean = that match {
+    case x: Segment => (this eq x) || (model == x.model && location == x.location &&
+      instance == x.instance && children == x.children && hasExtra == x.hasExtra)
+    case _ => false
+  }
+
+  override def hashCode: Int = scala.util.hashing.MurmurHash3.productHash(this)
+
+  override def toString: String = scala.runtime.ScalaRunTime._toString(this)
+}
 
 /**
   * Segment companion object
@@ -22,6 +86,13 @@ object Segment extends EscapeSeqHandler {
 
   //FIXME: Handle Dynamic Mapping
 
+  def apply(model: SM, location: Location, instance: Int, children: List[Field],
+            hasExtra: Boolean): Segment =
+    new Segment(model, location, instance, children, hasExtra, null)
+
+  def unapply(s: Segment): Option[(SM, Location, Int, List[Field], Boolean)] =
+    Some((s.model, s.location, s.instance, s.children, s.hasExtra))
+
   /**
     * Creates and returns a segment
     * @param m - The segment model
@@ -32,37 +103,85 @@ object Segment extends EscapeSeqHandler {
     */
   def apply(m: SM, v: String, i: Int, l: Int)
            (implicit s: Separators, ctr : Counter): Segment = {
+    val loc = segmentLocation(m, v, l)
+    val (lfs, hasExtra) = content(m, v, loc)
+    Segment(m, loc, i, lfs, hasExtra)
+  }
+
+  /**
+    * Creates and returns a segment whose fields are built on first access.
+    * The segment format and name are checked immediately, an error raised
+    * while building the fields is thrown when they are first accessed.
+    * @param m - The segment model
+    * @param v - The value as string
+    * @param i - The instance number
+    * @param l - The line number
+    * @return A segment
+    */
+  def lazily(m: SM, v: String, i: Int, l: Int)
+            (implicit s: Separators, ctr : Counter): Segment = {
+    val loc = segmentLocation(m, v, l)
+    new Segment(m, loc, i, Nil, false, () => content(m, v, loc))
+  }
+
+  /**
+    * Checks the segment and returns its location
+    */
+  private def segmentLocation(m: SM, v: String, l: Int)
+                      (implicit s: Separators, ctr : Counter): Location = {
     require( isValid( s.fs, v ), s"Invalid segment instance '$v'" )
     val name = m.ref.name
     require(name == v.take(3), s"Invalid segment name. Expected: '$name', Found: '$v'")
     val nb = ctr.countFor(name);
-    val loc = Location(EType.Segment, m.ref.desc, name, l, 1, s"$name[$nb]")
-    val vs  = split( s.fs, v drop 4 , 5)
+    Location(EType.Segment, m.ref.desc, name, l, 1, s"$name[$nb]")
+  }
+
+  /**
+    * Creates and returns the fields of the segment and whether it has extra fields
+    */
+  private def content(m: SM, v: String, loc: Location)
+                     (implicit s: Separators): (List[Field], Boolean) = {
+    val from = math.min(4, v.length)
+    val spans = Spans.level(0).split(s.fs, v, from, v.length)
+    // The (column, value) array is only built if there are dynamic mappings
+    lazy val vs = Array.tabulate(spans.size) { k =>
+      (5 + spans.start(k) - from) -> v.substring(spans.start(k), spans.end(k))
+    }
     // Attempt to resolve dynamic data types abort if errors
     val fml = resolveDyn(m.ref.fields, vs, m.ref.mappings).getOrElse(m.ref.fields)//m.ref.fields
-    val (hasExtra, lfs) =
-      if( v startsWith "MSH" ) (vs.size > fml.size - 1) -> mshFields(fml, vs, loc)
-      else (vs.size > fml.size) -> fields( fml, vs, loc )
-    Segment(m, loc, i, lfs.flatten, hasExtra)
+    if( v startsWith "MSH" ) mshFields(fml, v, spans, from, loc) -> (spans.size > fml.size - 1)
+    else fields( fml, v, spans, from, 0, loc ) -> (spans.size > fml.size)
   }
 
   /**
     * Creates abd returns a list of field
-    * @param fml - The list of field models
-    * @param vs  - The value and column array
-    * @param l   - The parent location
+    * @param fml   - The list of field models
+    * @param v     - The segment as string
+    * @param spans - The spans of the fields in the segment
+    * @param from  - The offset of the first field
+    * @param k     - The index of the span of the first field model
+    * @param l     - The parent location
     * @return A list of field
     */
-  private def fields( fml: List[FM], vs: Array[(Int, String)], l: Location)
-                    (implicit s: Separators) =
-    fml zip vs map { t => repetitions( t._1, t._2, l ) }
+  private def fields( fml: List[FM], v: String, spans: Spans, from: Int, k: Int,
+                      l: Location)(implicit s: Separators): List[Field] = {
+    val r = List.newBuilder[Field]
+    var models = fml
+    var i = k
+    while (models.nonEmpty && i < spans.size) {
+      r ++= repetitions( models.head, v, spans.start(i), spans.end(i), 5 + spans.start(i) - from, l )
+      models = models.tail
+      i += 1
+    }
+    r.result()
+  }
 
-  private def mshFields( fml: List[FM], vs: Array[(Int, String)], l: Location )
+  private def mshFields( fml: List[FM], v: String, spans: Spans, from: Int, l: Location )
                        (implicit s: Separators) = {
     val `MSH.1` = if(fml.nonEmpty) field(l, fml.head, s"${s.fs}", 1, 4).toList else Nil //FIXME: Do we have to escape here ?
-    val `MSH.2` = if(fml.nonEmpty) field(l, fml.tail.head, vs(0)._2, 1, 5).toList else Nil //FIXME: Do we have to escape here ?
-    val _fields = if(fml.nonEmpty) fields(fml.tail.tail, vs drop 1 , l).toList else Nil
-    `MSH.1`  :: `MSH.2` :: _fields
+    val `MSH.2` = if(fml.nonEmpty) field(l, fml.tail.head, v, spans.start(0), spans.end(0), 1, 5).toList else Nil //FIXME: Do we have to escape here ?
+    val _fields = if(fml.nonEmpty) fields(fml.tail.tail, v, spans, from, 1, l) else Nil
+    `MSH.1` ::: `MSH.2` ::: _fields
   }
 
   /**
@@ -75,38 +194,43 @@ object Segment extends EscapeSeqHandler {
     * @return A field
     */
   private def field(l: Location, m: FM, v: String, i: Int, c: Int)
-                   (implicit s: Separators) = {
+                   (implicit s: Separators): Option[Field] =
+    field(l, m, v, 0, v.length, i, c)
+
+  private def field(l: Location, m: FM, line: String, from: Int, to: Int, i: Int, c: Int)
+                   (implicit s: Separators): Option[Field] = {
     val loc = location(l, m.name, m.req.position, i, c)
-    DataElement.field(m.datatype, m.req, loc, v, i)
+    DataElement.field(m.datatype, m.req, loc, line, from, to, i)
   }
+
   /**
     * Creates and returns a list representing a repetition of a field
-    * @param m - The field model
-    * @param t - The column and value
-    * @param l - The parent location
+    * @param m    - The field model
+    * @param line - The segment as string
+    * @param from - The start offset of the field
+    * @param to   - The end offset of the field
+    * @param col  - The column of the field
+    * @param l    - The parent location
     * @return A list representing a repetition of a field
     */
-  private def repetitions( m: FM, t: (Int, String), l: Location)
+  private def repetitions( m: FM, line: String, from: Int, to: Int, col: Int, l: Location)
                          (implicit s: Separators): List[Field] = {
-    val vs = split(s.rs, t._2, t._1)
-    val r = vs.toList.zipWithIndex map { tt =>
-      val( (col, v), ins) = tt
-      field(l, m, v, ins + 1, col)
+    val vs = Spans.level(1).split(s.rs, line, from, to)
+    val r = List.newBuilder[Field]
+    var k = 0
+    while (k < vs.size) {
+      field(l, m, line, vs.start(k), vs.end(k), k + 1, col + vs.start(k) - from) foreach { r += _ }
+      k += 1
     }
-    r.flatten
+    r.result()
   }
 
-  /**
-    * Regular expression for matching valid segment instance
-    */
-  private def segFormat(fs: Char) = s"[A-Z]{2}[A-Z0-9](?:\\Q$fs\\E.*)*".r
-
   /**
     * Returns true if s is a valid segment instance
     * @param s - The segment as string
     * @return True if s is a valid segment instance
     */
-  private def isValid( fs: Char, s: String ) = segFormat(fs).pattern.matcher( s ).matches
+  private def isValid( fs: Char, s: String ) = Syntax.isValidSegment( fs, s )
 
   /**
     * Creates and returns a location from the parent location
@@ -118,11 +242,11 @@ object Segment extends EscapeSeqHandler {
     * @return A location
     */
   private def location(l: Location, d: String,  p: Int, i: Int, c: Int) =
-    l.copy(EType.Field, desc=d, path=s"${l.path}-$p", column = c, uidPath = s"${l.uidPath}-$p[$i]")
+    l.field(d, p, i, c)
 
   private def resolveDyn(
       models: List[FM],
-      vs: Array[(Int, String)],
+      vs: => Array[(Int, String)],
       mappings: List[DynMapping])
   (implicit s: Separators) : Try[List[FM]] = Try {
     mappings match {
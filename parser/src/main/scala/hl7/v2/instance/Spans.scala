@@ -0,0 +1,84 @@
+package hl7.v2.instance
+
+/**
+  * Offsets of the tokens of a character sequence
+  *
+  * The token `i` spans from `start(i)` (inclusive) to `end(i)` (exclusive)
+  * in the character sequence which has been split. The arrays are reused
+  * from one split to the next, no substring is created.
+  */
+final class Spans {
+
+  private var starts = new Array[Int](16)
+  private var ends   = new Array[Int](16)
+  private var _size  = 0
+
+  /**
+    * The number of tokens
+    */
+  def size: Int = _size
+
+  /**
+    * Returns the start offset of the token `i`
+    */
+  def start(i: Int): Int = { check(i); starts(i) }
+
+  /**
+    * Returns the end offset of the token `i`
+    */
+  def end(i: Int): Int = { check(i); ends(i) }
+
+  /**
+    * Splits `s` between `from` (inclusive) and `to` (exclusive) on
+    * the character `sep`. The semantic is the one of `String.split`:
+    * trailing empty tokens are removed unless the range is empty in
+    * which case there is a single empty token.
+    */
+  def split(sep: Char, s: CharSequence, from: Int, to: Int): Spans = {
+    _size = 0
+    var b = from
+    var i = from
+    while (i < to) {
+      if (s.charAt(i) == sep) { add(b, i); b = i + 1 }
+      i += 1
+    }
+    add(b, to)
+    if (to > from)
+      while (_size > 0 && starts(_size - 1) == ends(_size - 1)) _size -= 1
+    this
+  }
+
+  private def add(start: Int, end: Int): Unit = {
+    if (_size == starts.length) {
+      starts = java.util.Arrays.copyOf(starts, _size * 2)
+      ends   = java.util.Arrays.copyOf(ends, _size * 2)
+    }
+    starts(_size) = start
+    ends(_size) = end
+    _size += 1
+  }
+
+  private def check(i: Int): Unit =
+    if (i < 0 || i >= _size)
+      throw new ArrayIndexOutOfBoundsException(s"Index $i out of bounds for length ${_size}")
+}
+
+object Spans {
+
+  private val pool = ThreadLocal.withInitial[Array[Spans]](() => Array.fill(6)(new Spans))
+
+  /**
+    * Returns the spans of the current thread for the nesting level `n`.
+    * Level 0 is used for the fields, 1 for the repetitions, 2 for the
+    * components and so on. A level must not be used by two splits whose
+    * tokens are traversed at the same time.
+    */
+  def level(n: Int): Spans = {
+    var levels = pool.get
+    if (n >= levels.length) {
+      levels = levels ++ Array.fill(n + 1 - levels.length)(new Spans)
+      pool.set(levels)
+    }
+    levels(n)
+  }
+}
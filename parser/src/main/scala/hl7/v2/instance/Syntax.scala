@@ -0,0 +1,67 @@
+package hl7.v2.instance
+
+/**
+  * Character scans used to check the syntax of the message while it is
+  * being built. They replace the regular expressions which were compiled
+  * for every segment, field and component.
+  */
+object Syntax {
+
+  /**
+    * Returns true if the character matches the regular expression `\s`
+    */
+  def isWhitespace(c: Char): Boolean =
+    c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+
+  /**
+    * Returns true if the character is a line terminator for the
+    * regular expression `.` i.e. a character not matched by `.`
+    */
+  private def isLineTerminator(c: Char): Boolean =
+    c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029'
+
+  /**
+    * Returns true if the line is a valid segment instance i.e. if it
+    * matches the regular expression `[A-Z]{2}[A-Z0-9](?:\Qfs\E.*)*`
+    */
+  def isValidSegment(fs: Char, s: CharSequence): Boolean = {
+    def upper(c: Char) = c >= 'A' && c <= 'Z'
+    val n = s.length
+    if (n < 3 || !upper(s.charAt(0)) || !upper(s.charAt(1)) ||
+      !(upper(s.charAt(2)) || (s.charAt(2) >= '0' && s.charAt(2) <= '9'))) false
+    else if (n == 3) true
+    else if (s.charAt(3) != fs) false
+    else {
+      var i = 4
+      while (i < n && (s.charAt(i) == fs || !isLineTerminator(s.charAt(i)))) i += 1
+      i == n
+    }
+  }
+
+  /**
+    * Returns true if the range of `s` is an empty field i.e. if it matches
+    * the regular expression `(:?\s|\Qcs\E|\Qss\E)*`. A colon is only allowed
+    * when it is followed by a whitespace.
+    */
+  def isEmptyField(cs: Char, ss: Char, s: CharSequence, from: Int, to: Int): Boolean = {
+    var i = from
+    var empty = true
+    while (empty && i < to) {
+      val c = s.charAt(i)
+      if (isWhitespace(c) || c == cs || c == ss) i += 1
+      else if (c == ':' && i + 1 < to && isWhitespace(s.charAt(i + 1))) i += 2
+      else empty = false
+    }
+    empty
+  }
+
+  /**
+    * Returns true if the range of `s` is an empty component i.e.
+    * if it contains only whitespaces and sub-component separators.
+    */
+  def isEmptyComponent(ss: Char, s: CharSequence, from: Int, to: Int): Boolean = {
+    var i = from
+    while (i < to && (isWhitespace(s.charAt(i)) || s.charAt(i) == ss)) i += 1
+    i == to
+  }
+}
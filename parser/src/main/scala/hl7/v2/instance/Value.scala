@@ -1,7 +1,11 @@
 package hl7.v2.instance
 
+import hl7.v2.instance.util.ValueConversionHelpers.timeToMilliSeconds
+import hl7.v2.instance.util.ValueFormatCheckers._
 import hl7.v2.profile.Primitive
 
+import scala.util.Try
+
 /**
   * @author Salifou Sidi M. Malick <salifou.sidi@gmail.com>
   */
@@ -17,6 +21,83 @@ sealed trait Value extends {
     * Returns true if the value is equal to HL7 Null ("")
     */
   def isNull: Boolean = raw == Value.NULL
+
+  @transient private[this] var _unescaped: Value.Unescaped = null
+
+  /**
+    * Returns the raw value with HL7 basic escape sequences replaced. The
+    * result is computed once per value, values without the escape
+    * character are returned as is without being cached.
+    */
+  def unescaped(implicit separators: Separators): String = {
+    val u = _unescaped
+    if ((u ne null) && (u.separators eq separators)) u.value
+    else {
+      val r = EscapeSeqHandler.unescape(raw)
+      if (r ne raw) _unescaped = new Value.Unescaped(separators, r)
+      r
+    }
+  }
+
+  @transient private[this] var _typed: Value.Typed = null
+
+  private def typed: Value.Typed = {
+    var t = _typed
+    if (t eq null) { t = new Value.Typed; _typed = t }
+    t
+  }
+
+  /**
+    * The raw value as a number or a failure if it does not have a valid
+    * Number format. The typed forms of a value are computed at most once
+    * and are shared by the format checks and the comparisons.
+    */
+  def asNumber: Try[Double] = {
+    val t = typed
+    if (t.number eq null) t.number = checkNumberFormat(raw) map (_.toDouble)
+    t.number
+  }
+
+  /**
+    * The raw value or a failure if it does not have a valid Date format
+    */
+  def asDate: Try[String] = {
+    val t = typed
+    if (t.date eq null) t.date = checkDateFormat(raw)
+    t.date
+  }
+
+  /**
+    * The raw value or a failure if it does not have a valid Time format
+    */
+  def asTime: Try[String] = {
+    val t = typed
+    if (t.time eq null) t.time = checkTimeFormat(raw)
+    t.time
+  }
+
+  /**
+    * The raw value or a failure if it does not have a valid DateTime format
+    */
+  def asDateTime: Try[String] = {
+    val t = typed
+    if (t.dateTime eq null) t.dateTime = checkDateTimeFormat(raw)
+    t.dateTime
+  }
+
+  /**
+    * The time in milliseconds using `dtz` when the time zone is missing
+    */
+  def asMilliSeconds(dtz: Option[TimeZone]): Try[Long] = {
+    val t = typed
+    val m = t.milliSeconds
+    if ((m ne null) && m.dtz == dtz) m.value
+    else {
+      val r = asTime flatMap { timeToMilliSeconds(_, dtz) }
+      t.milliSeconds = new Value.MilliSeconds(dtz, r)
+      r
+    }
+  }
 }
 
 case class Number(raw: String)  extends Value
@@ -35,6 +116,21 @@ object Value {
 
   val NULL = "\"\""
 
+  private final class Unescaped(val separators: Separators, val value: String)
+
+  private final class MilliSeconds(val dtz: Option[TimeZone], val value: Try[Long])
+
+  /**
+    * The typed forms of a value, null until computed
+    */
+  private final class Typed {
+    var number: Try[Double] = null
+    var date: Try[String] = null
+    var time: Try[String] = null
+    var dateTime: Try[String] = null
+    var milliSeconds: MilliSeconds = null
+  }
+
   /**
     * Create the value from string depending on the data type
     */
@@ -1,9 +1,6 @@
 package hl7.v2.instance
 package util
 
-import hl7.v2.instance.util.ValueConversionHelpers._
-import hl7.v2.instance.util.ValueFormatCheckers._
-
 import scala.util.{Failure, Success, Try}
 
 object ValueComparator {
@@ -135,17 +132,17 @@ object ValueComparator {
     */
   private def numberComparator(v1: Number, v2: Value): Try[Int] =
     for {
-      n1 <- checkNumberFormat(v1.raw)
-      n2 <- checkNumberFormat(v2.raw)
-    } yield n1.toDouble compareTo n2.toDouble
+      n1 <- v1.asNumber
+      n2 <- v2.asNumber
+    } yield n1 compareTo n2
 
   /**
     * Compares the values they both have to have a valid date format
     */
   private def dateComparator(v1: Date, v2: Value): Try[Int] =
     for {
-      x1 <- checkDateFormat(v1.raw)
-      x2 <- checkDateFormat(v2.raw)
+      x1 <- v1.asDate
+      x2 <- v2.asDate
     } yield x1 compareTo x2
 
   /**
@@ -153,10 +150,10 @@ object ValueComparator {
     */
   private def timeComparator(dtz: TZ)(v1: Time, v2: Value): Try[Int] =
     for {
-      x1 <- checkTimeFormat(v1.raw)
-      x2 <- checkTimeFormat(v2.raw)
-      t1 <- timeToMilliSeconds(x1, dtz)
-      t2 <- timeToMilliSeconds(x2, dtz)
+      _  <- v1.asTime
+      _  <- v2.asTime
+      t1 <- v1.asMilliSeconds(dtz)
+      t2 <- v2.asMilliSeconds(dtz)
     } yield t1 compareTo t2
 
   /**
@@ -164,8 +161,8 @@ object ValueComparator {
     */
   private def dateTimeComparator(dtz: TZ)(v1: DateTime, v2: Value): Try[Int] =
     for {
-      x1 <- checkDateTimeFormat(v1.raw)
-      x2 <- checkDateTimeFormat(v2.raw)
+      x1 <- v1.asDateTime
+      x2 <- v2.asDateTime
     } yield x1 compareTo x2  //FIXME We do textual comparison for now
 
   /*
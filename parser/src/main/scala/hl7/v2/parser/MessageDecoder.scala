@@ -0,0 +1,193 @@
+package hl7.v2.parser
+
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.charset.{Charset, StandardCharsets}
+
+import scala.util.Try
+
+/**
+  * Decodes the bytes of a message using the character set of MSH-18
+  *
+  * The field separator and MSH-18 are read from the bytes before the
+  * message is decoded. Messages declared as ASCII or ISO-8859-1 and UTF-8
+  * messages which only contain ASCII characters are decoded as ISO-8859-1:
+  * the decoding is a plain copy and the resulting string keeps one byte
+  * per character. When MSH-18 is missing or unknown, the default character
+  * set is used.
+  *
+  * Messages starting with a UTF-8, UTF-16 or UTF-32 byte order mark, or
+  * with MSH, FHS or BHS encoded in UTF-16 or UTF-32, are decoded with that
+  * encoding whatever MSH-18 says, and the byte order mark is dropped.
+  */
+object MessageDecoder {
+
+  /**
+    * The character set used when MSH-18 is missing or unknown
+    */
+  val defaultCharset: Charset = StandardCharsets.UTF_8
+
+  private val UTF_32BE = Charset.forName("UTF-32BE")
+
+  private val UTF_32LE = Charset.forName("UTF-32LE")
+
+  /**
+    * The segments which can start a message, a batch or a file
+    */
+  private val headers = Array("MSH", "FHS", "BHS")
+
+  /**
+    * The Java character set names of the HL7 character sets (table 0211)
+    */
+  private val charsets = Map(
+    "ASCII"           -> "US-ASCII",
+    "ISO IR6"         -> "US-ASCII",
+    "8859/1"          -> "ISO-8859-1",
+    "ISO IR100"       -> "ISO-8859-1",
+    "8859/2"          -> "ISO-8859-2",
+    "8859/3"          -> "ISO-8859-3",
+    "8859/4"          -> "ISO-8859-4",
+    "8859/5"          -> "ISO-8859-5",
+    "8859/6"          -> "ISO-8859-6",
+    "8859/7"          -> "ISO-8859-7",
+    "8859/8"          -> "ISO-8859-8",
+    "8859/9"          -> "ISO-8859-9",
+    "8859/15"         -> "ISO-8859-15",
+    "UNICODE"         -> "UTF-8",
+    "UNICODE UTF-8"   -> "UTF-8",
+    "UNICODE UTF-16"  -> "UTF-16",
+    "UNICODE UTF-32"  -> "UTF-32",
+    "ISO IR14"        -> "JIS_X0201",
+    "ISO IR87"        -> "x-JIS0208",
+    "ISO IR159"       -> "JIS_X0212-1990",
+    "GB 18030-2000"   -> "GB18030",
+    "KS X 1001"       -> "EUC-KR",
+    "CNS 11643-1992"  -> "x-EUC-TW",
+    "BIG-5"           -> "Big5"
+  )
+
+  /**
+    * Returns the Java character set of the HL7 character set if known
+    */
+  def charset(name: String): Option[Charset] =
+    charsets.get(name.trim.toUpperCase) flatMap { n => Try(Charset.forName(n)).toOption }
+
+  def decode(message: Array[Byte]): String = decode(message, 0, message.length)
+
+  def decode(message: ByteBuffer): String =
+    if (message.hasArray)
+      decode(message.array, message.arrayOffset + message.position(), message.remaining)
+    else {
+      val bytes = new Array[Byte](message.remaining)
+      message.duplicate().get(bytes)
+      decode(bytes)
+    }
+
+  def decode(message: InputStream): String = decode(message.readAllBytes())
+
+  /**
+    * Decodes `length` bytes of the array starting at `offset`
+    */
+  def decode(bytes: Array[Byte], offset: Int, length: Int): String =
+    unicode(bytes, offset, length) match {
+      case Some((cs, bom)) => new String(bytes, offset + bom, length - bom, cs)
+      case None =>
+        val cs = msh18(bytes, offset, length) flatMap charset getOrElse defaultCharset
+        if (isSingleByte(cs) || (isASCIICompatible(cs) && isASCII(bytes, offset, length)))
+          new String(bytes, offset, length, StandardCharsets.ISO_8859_1)
+        else
+          new String(bytes, offset, length, cs)
+    }
+
+  /**
+    * Returns the Unicode character set of the bytes and the length of the
+    * byte order mark if the bytes start with a byte order mark or with MSH,
+    * FHS or BHS encoded in UTF-16 or UTF-32. The byte order mark is not
+    * decoded.
+    */
+  private[parser] def unicode(bytes: Array[Byte], offset: Int, length: Int): Option[(Charset, Int)] = {
+    def startsWith(prefix: Int*) =
+      length >= prefix.length && prefix.indices.forall { i => bytes(offset + i) == prefix(i).toByte }
+    if (startsWith(0x00, 0x00, 0xFE, 0xFF)) Some(UTF_32BE -> 4)
+    else if (startsWith(0xFF, 0xFE, 0x00, 0x00)) Some(UTF_32LE -> 4)
+    else if (startsWith(0xEF, 0xBB, 0xBF)) Some(StandardCharsets.UTF_8 -> 3)
+    else if (startsWith(0xFE, 0xFF)) Some(StandardCharsets.UTF_16BE -> 2)
+    else if (startsWith(0xFF, 0xFE)) Some(StandardCharsets.UTF_16LE -> 2)
+    else if (startsWithHeader(bytes, offset, length, 4, bigEndian = true)) Some(UTF_32BE -> 0)
+    else if (startsWithHeader(bytes, offset, length, 4, bigEndian = false)) Some(UTF_32LE -> 0)
+    else if (startsWithHeader(bytes, offset, length, 2, bigEndian = true)) Some(StandardCharsets.UTF_16BE -> 0)
+    else if (startsWithHeader(bytes, offset, length, 2, bigEndian = false)) Some(StandardCharsets.UTF_16LE -> 0)
+    else None
+  }
+
+  /**
+    * Returns true if the bytes start with one of the header segment names
+    * encoded with `width` bytes per character in the specified byte order
+    */
+  private def startsWithHeader(bytes: Array[Byte], offset: Int, length: Int,
+                               width: Int, bigEndian: Boolean): Boolean =
+    length >= 3 * width && headers.exists { h =>
+      val significant = if (bigEndian) width - 1 else 0
+      (0 until 3 * width) forall { i =>
+        val expected = if (i % width == significant) h.charAt(i / width) else 0
+        bytes(offset + i) == expected.toByte
+      }
+    }
+
+  /**
+    * Returns the first repetition of MSH-18 read from the bytes, if any
+    */
+  private[parser] def msh18(bytes: Array[Byte], offset: Int, length: Int): Option[String] = {
+    val end = offset + length
+    val msh = indexOfMSH(bytes, offset, end)
+    if (msh < 0 || msh + 8 >= end) None
+    else {
+      val fs = bytes(msh + 3)
+      val rs = bytes(msh + 5)
+      // MSH-2 is the first field after the field separator of MSH-1
+      var field = 1
+      var i = msh + 3
+      while (i < end && field < 18 && !isLineBreak(bytes(i))) {
+        if (bytes(i) == fs) field += 1
+        i += 1
+      }
+      if (field < 18) None
+      else {
+        var j = i
+        while (j < end && bytes(j) != fs && bytes(j) != rs && !isLineBreak(bytes(j))) j += 1
+        val value = new String(bytes, i, j - i, StandardCharsets.ISO_8859_1).trim
+        if (value.isEmpty) None else Some(value)
+      }
+    }
+  }
+
+  /**
+    * Returns the index of the first MSH segment or -1
+    */
+  private def indexOfMSH(bytes: Array[Byte], from: Int, end: Int): Int = {
+    var i = from
+    while (i + 3 < end) {
+      if (bytes(i) == 'M' && bytes(i + 1) == 'S' && bytes(i + 2) == 'H' &&
+        (i == from || isLineBreak(bytes(i - 1)))) return i
+      i += 1
+    }
+    -1
+  }
+
+  private def isLineBreak(b: Byte) = b == '\r' || b == '\n'
+
+  private def isSingleByte(cs: Charset) =
+    cs == StandardCharsets.US_ASCII || cs == StandardCharsets.ISO_8859_1
+
+  private def isASCIICompatible(cs: Charset) = cs == StandardCharsets.UTF_8
+
+  private def isASCII(bytes: Array[Byte], offset: Int, length: Int): Boolean = {
+    var i = offset
+    val end = offset + length
+    while (i < end) {
+      if (bytes(i) < 0) return false
+      i += 1
+    }
+    true
+  }
+}
@@ -1,5 +1,8 @@
 package hl7.v2.parser
 
+import java.io.InputStream
+import java.nio.ByteBuffer
+
 import hl7.v2.instance.Message
 import hl7.v2.profile.{ Message => MM }
 
@@ -17,4 +20,36 @@ trait Parser {
     * @return The message instance model
     */
   def parse( message: String, model: MM ): Try[Message]
+
+  /**
+    * Parses a message which starts at the line `firstLine` of a larger
+    * input (e.g. a batch file). The locations of the message instance
+    * model refer to the lines of the input.
+    *
+    * The default implementation parses the message alone, its locations
+    * refer to the lines of the message. Parsers able to number the lines
+    * from `firstLine`, like the default parser, override it.
+    * @param message   - The message to be parsed
+    * @param model     - The message model (profile)
+    * @param firstLine - The number of the first line of the message
+    * @return The message instance model
+    */
+  def parse( message: String, model: MM, firstLine: Int ): Try[Message] =
+    parse( message, model )
+
+  /**
+    * Decodes the message using the character set defined in MSH-18
+    * (see `MessageDecoder`) then parses it
+    * @param message - The bytes of the message to be parsed
+    * @param model   - The message model (profile)
+    * @return The message instance model
+    */
+  def parse( message: Array[Byte], model: MM ): Try[Message] =
+    Try( MessageDecoder.decode(message) ) flatMap { parse(_, model) }
+
+  def parse( message: ByteBuffer, model: MM ): Try[Message] =
+    Try( MessageDecoder.decode(message) ) flatMap { parse(_, model) }
+
+  def parse( message: InputStream, model: MM ): Try[Message] =
+    Try( MessageDecoder.decode(message) ) flatMap { parse(_, model) }
 }
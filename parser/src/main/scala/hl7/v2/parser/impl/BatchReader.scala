@@ -0,0 +1,117 @@
+package hl7.v2.parser.impl
+
+import java.io.{BufferedReader, Closeable, InputStream, InputStreamReader, Reader}
+import java.nio.channels.{Channels, FileChannel}
+import java.nio.charset.{Charset, CodingErrorAction, StandardCharsets}
+import java.nio.file.{Path, StandardOpenOption}
+
+/**
+  * A message read from a batch file
+  *
+  * @param firstLine - The number of the first line of the message in the file
+  * @param content   - The message
+  */
+case class BatchMessage(firstLine: Int, content: String)
+
+/**
+  * Streaming reader of batch files and multi-message archives
+  *
+  * The input is read line by line and split at the MSH segments, only
+  * the message being built is kept in memory. The batch envelope
+  * segments (FHS, BHS, BTS and FTS) and the blank lines before a message
+  * are skipped. The other lines before an MSH segment are kept with the
+  * message so that they are reported as invalid lines. Line breaks are
+  * the ones of the parser (CR, LF or CRLF) and every message keeps the
+  * number of its first line in the input.
+  */
+final class BatchReader(reader: Reader) extends Iterator[BatchMessage] with Closeable {
+
+  private val in = reader match {
+    case r: BufferedReader => r
+    case r => new BufferedReader(r, BatchReader.bufferSize)
+  }
+
+  private var lineNumber = 0
+
+  // The line read ahead, null at the end of the input
+  private var pending: String = readLine()
+
+  private var _next: BatchMessage = null
+
+  private def readLine(): String = {
+    val l = in.readLine()
+    if (l != null) lineNumber += 1
+    l
+  }
+
+  def hasNext: Boolean = {
+    if (_next == null) _next = read()
+    _next != null
+  }
+
+  def next(): BatchMessage = {
+    if (!hasNext) throw new NoSuchElementException("next on empty iterator")
+    val r = _next
+    _next = null
+    r
+  }
+
+  def close(): Unit = in.close()
+
+  /**
+    * Reads the next message or returns null at the end of the input
+    */
+  private def read(): BatchMessage = {
+    val sb = new java.lang.StringBuilder
+    var first = 0
+    var hasMSH = false
+    var empty = true
+    var done = false
+    while (!done && pending != null) {
+      val line = pending
+      if (empty && (line.trim.isEmpty || BatchReader.isEnvelope(line))) {
+        // Blank lines and envelope segments before a message are skipped
+        pending = readLine()
+      } else if (BatchReader.isEnvelope(line) || hasMSH && line.startsWith("MSH")) {
+        done = true
+      } else {
+        if (empty) first = lineNumber
+        if (line.startsWith("MSH")) hasMSH = true
+        empty = false
+        sb.append(line).append('\r')
+        pending = readLine()
+      }
+    }
+    if (empty) null else BatchMessage(first, sb.toString)
+  }
+}
+
+object BatchReader {
+
+  val bufferSize: Int = 1 << 16
+
+  private val envelope = Set("FHS", "BHS", "BTS", "FTS")
+
+  private def isEnvelope(line: String): Boolean =
+    line.length >= 3 && envelope(line.substring(0, 3))
+
+  /**
+    * Creates a reader for the file. The file is read through a NIO
+    * channel and is never loaded entirely in memory.
+    * @param file    - The file
+    * @param charset - The character set of the file
+    * @return A batch reader
+    */
+  def apply(file: Path, charset: Charset): BatchReader = {
+    val channel = FileChannel.open(file, StandardOpenOption.READ)
+    val decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE)
+    new BatchReader(Channels.newReader(channel, decoder, bufferSize))
+  }
+
+  def apply(file: Path): BatchReader = apply(file, StandardCharsets.UTF_8)
+
+  def apply(in: InputStream, charset: Charset): BatchReader =
+    new BatchReader(new InputStreamReader(in, charset))
+}
@@ -20,18 +20,37 @@ trait DefaultParser extends Parser {
    * @param model   - The message model (profile)
    * @return The message instance model
    */
-  def parse(message: String, model: MM): Try[Message] =
-    PreProcessor.process(message, model) map { t =>
+  def parse(message: String, model: MM): Try[Message] = parse(message, model, 1)
+
+  override def parse(message: String, model: MM, firstLine: Int): Try[Message] =
+    PreProcessor.process(message, model, firstLine) map { t =>
       val PPR(valid, invalid, preUnexpected, separators) = t
       implicit val s = separators
       implicit val ctr = Counter(scala.collection.mutable.Map[String, Int]())
-      val (children, unexpected) = processChildren(model.structure, valid.map(x => Line(x._1, x._2)))
+      val (children, unexpected) = assign(model, valid.map(x => Line(x._1, x._2)))
       val tz: Option[TimeZone] = None //FIXME Get TZ from MSH.7
       val ils = invalid map (x => Line(x._1, x._2)) //FIXME Update PreProcessor to use Line
       val uls = (preUnexpected.map(x => Line(x._1, x._2)) ::: unexpected) //FIXME Update PreProcessor to use Line
-      Message(model, children.reverse, ils, uls, tz, s)
+      Message(model, children, ils, uls, tz, s)
     }
 
+  /**
+   * Whether the fields of the segments are built on first access rather
+   * than while parsing. The lazy mode saves time and memory when only a
+   * few segments of a large message are inspected. In lazy mode, an error
+   * raised while building the fields of a segment does not fail the parse,
+   * it is thrown when the fields of the segment are first accessed.
+   */
+  def lazySegments: Boolean = false
+
+  /**
+   * The cache of message shapes used by the parser, if any. When a message
+   * has the same model and sequence of segment names as a message already
+   * parsed, the group and instance assignment is read from the cache.
+   * The cache should be overridden with a `val` to be kept across messages.
+   */
+  def shapeCache: Option[ShapeCache] = None
+
   // Type Aliases
   type Stack = List[Line] // List[(Int, String)]
   type LS = List[Segment]
@@ -39,51 +58,96 @@ trait DefaultParser extends Parser {
   type LSG = List[SegOrGroup]
 
   /**
-   * Creates the children of a message or a group. Returns a pair consisting
-   * of the list of children elements and the remaining stack.
+   * Returns the children of the message in order and the unexpected lines
    */
+  private def assign(model: MM, lines: Stack)(implicit separators: Separators, ctr: Counter): (LSG, Stack) =
+    shapeCache match {
+      case None =>
+        val (children, unexpected) = processChildren(model.structure, lines)
+        (children.reverse, unexpected)
+      case Some(cache) =>
+        val key = ShapeCache.key(model, lines)
+        cache.get(key) match {
+          case Some(shape) => replay(shape, lines)
+          case None =>
+            val (cs, unexpected) = processChildren(model.structure, lines)
+            val children = cs.reverse
+            cache.put(key, Shape.of(children))
+            (children, unexpected)
+        }
+    }
+
+  /**
+   * Creates the children of a message from its shape. The segments are
+   * created in the order of the lines, as done by `processChildren`.
+   */
+  private def replay(shape: Shape, lines: Stack)(implicit separators: Separators, ctr: Counter): (LSG, Stack) = {
+    var stack = lines
+    def build(n: ShapeNode): SegOrGroup = n match {
+      case SegmentShape(m, i) =>
+        val l = stack.head
+        stack = stack.tail
+        segment(m, l, i)
+      case GroupShape(m, i, children) => Group(m, i, children map build)
+    }
+    val children = shape.children map build
+    (children, stack)
+  }
 
+  /**
+   * Creates the children of a message or a group. Returns a pair consisting
+   * of the list of children elements, in reverse order, and the remaining
+   * stack. The children models are walked once, a nested group is matched
+   * by `processGroup`, so the recursion is bounded by the group nesting
+   * of the profile and not by the number of lines.
+   */
   protected def processChildren(models: List[SGM], stack: Stack, head: Boolean = true)(implicit separators: Separators, ctr: Counter): (LSG, Stack) = {
+    var children = List[SegOrGroup]()
+    var remaining = stack
     var isHead = head
-    models.foldLeft((List[SegOrGroup](), stack)) { (acc, x) =>
-      x match {
+    var ms = models
+    while (ms.nonEmpty) {
+      ms.head match {
         case sm: SM =>
-          val (ls, s) = processSegment(sm, acc._2, isHead)
-          isHead = false
-          (ls ::: acc._1, s)
+          val (ls, s) = processSegment(sm, remaining, isHead)
+          children = ls ::: children
+          remaining = s
         case gm: GM =>
-          val (lg, s) = processGroup(gm, acc._2)
-          isHead = false
-          (lg ::: acc._1, s)
+          val (lg, s) = processGroup(gm, remaining)
+          children = lg ::: children
+          remaining = s
       }
+      isHead = false
+      ms = ms.tail
     }
+    (children, remaining)
   }
 
+  /**
+   * Creates the instances of the group. The segments which can start an
+   * instance and the child to start from are looked up in the indices
+   * precomputed on the group model, so each line is matched once per
+   * group instead of walking the group structure.
+   */
   private def processGroup(gm: GM, stack: Stack)(implicit separators: Separators, ctr: Counter): (List[Group], Stack) = {
-    def loop(acc: List[Group], s: Stack, i: Int): (List[Group], Stack) = {
+    @scala.annotation.tailrec
+    def loop(acc: List[Group], s: Stack, i: Int): (List[Group], Stack) =
       if (s.isEmpty) (acc, s)
-      else if (!isExpected(s.head, gm)) (acc, s)
-      else
-        lookFor(gm, s.head) match {
-          case Some(index) => {
-            val (children, ss) = processChildren(gm.structure.takeRight(gm.structure.size - index), s, index == 0)
-            val g = Group(gm, i, children.reverse)
-            loop(g :: acc, ss, i + 1)
+      else {
+        val code = segmentCode(s.head)
+        if (!gm.headNames.contains(code)) (acc, s)
+        else
+          gm.childIndex.get(code) match {
+            case Some(index) =>
+              val (children, ss) = processChildren(gm.structure.drop(index), s, index == 0)
+              loop(Group(gm, i, children.reverse) :: acc, ss, i + 1)
+            case None => (acc, s)
           }
-          case None => (acc, s)
-        }
-    }
+      }
 
     loop(Nil, stack, 1)
   }
 
-  private def lookFor(gm: GM, l: Line)(implicit separators: Separators, ctr: Counter) =
-    gm.structure.zipWithIndex find
-      { x => isExpected(l, x._1) } match {
-        case Some((m, i)) => Some(i)
-        case None => None
-      }
-
   private def processSegment(sm: SM, stack: Stack, isHead: Boolean)(implicit s: Separators, ctr: Counter): (List[Segment], Stack) =
     if (isHead) (segment(sm, stack.head, 1) :: Nil, stack.tail)
     else {
@@ -101,27 +165,13 @@ trait DefaultParser extends Parser {
    * @return A segment instance
    */
   private def segment(m: SM, l: Line, i: Int)(implicit s: Separators, ctr: Counter) =
-    Segment(m, l.content, i, l.number)
+    if (lazySegments) Segment.lazily(m, l.content, i, l.number)
+    else Segment(m, l.content, i, l.number)
 
-  private def isExpected(l: Line, m: GM): Boolean = m.structure.span(_.isInstanceOf[SM]) match {
-    case (Nil, grpAndOthers) => grpAndOthers.exists(isExpected(l, _))
-    case (headSegments, _) => headSegments.exists(isExpected(l, _))
-  }
-  private def isExpected(l: Line, m: SM ) = l.content startsWith m.ref.name
-  private def isExpected(l: Line, m: SGM): Boolean = m match {
-    case s : SM => isExpected(l, s)
-    case g : GM => isExpected(l, g)
-  }
-
-  private def isHead(l : Line, m : GM) = l.content startsWith headName(m)
+  private def isExpected(l: Line, m: SM) = l.content startsWith m.ref.name
 
   /**
-   * Returns the group head name
-   * @param m - The group model
-   * @return The group head name
+   * Returns the segment name of the line
    */
-  private def headName(m: GM): String = m.structure.head match {
-    case s: SM => s.ref.name
-    case g: GM => headName(g)
-  }
+  private def segmentCode(l: Line): String = l.content take 3
 }
@@ -1,7 +1,8 @@
 package hl7.v2.parser.impl
 
-import hl7.v2.instance.Separators
+import hl7.v2.instance.{Separators, Syntax}
 import hl7.v2.profile.{Group => GM, Message => MM, SegRefOrGroup => SGM, SegmentRef => SM}
+import scala.collection.mutable.{ArrayBuffer, ListBuffer}
 import scala.util.Try
 import scala.util.Failure
 import scala.util.Success
@@ -20,27 +21,43 @@ object PreProcessor {
     * This function will standardize the lines i.e. it will replace the separators
     * with the ones recommended by HL7 if necessary.
     *
-    * @param message - The message to be pre-processed
+    * @param message   - The message to be pre-processed
+    * @param firstLine - The number of the first line of the message
     * @return A `Success' containing  the PPR or a `Failure' if:
     *    1) No MSH segment if defined in the message
     *    2) MSH segment contains less than 9 characters
     *    3) A character is use twice as a separator
     */
-  def process(message: String, model : MM): Try[PPR] =
-    splitOnMSH(message) match {
+  def process(message: String, model : MM): Try[PPR] = process(message, model, 1)
+
+  def process(message: String, model : MM, firstLine: Int): Try[PPR] =
+    splitOnMSH(message, firstLine) match {
       case (beforeMSH, Nil) =>
         Failure( new Exception("No MSH Segment found in the message.") )
       case (beforeMSH, xs ) =>
         getSeparators( xs.head._2 ) map { separators =>
-          implicit val fs = separators.fs
-          val segNames = messageSegNames(model.structure)
-          val (correct, invalid) = partition( xs )
-          val (unexpected, valid) = correct partition {
-            seg => segNames.filter (seg._2 startsWith _) isEmpty
-          }
+          val (valid, invalid, unexpected) = classify( xs, model.segmentNames, separators.fs )
           PPR(valid, beforeMSH:::invalid, unexpected, separators)
         }
     }
+
+  /**
+    * Classifies the lines as valid, invalid or unexpected in one pass. A
+    * valid segment starts with a three characters name followed by the
+    * field separator, so the name is looked up in the set of names of the
+    * message model.
+    */
+  private def classify(lines: List[Line], names: Set[String], fs: Char): (List[Line], List[Line], List[Line]) = {
+    val valid      = ListBuffer[Line]()
+    val invalid    = ListBuffer[Line]()
+    val unexpected = ListBuffer[Line]()
+    lines foreach { l =>
+      if ( !Syntax.isValidSegment(fs, l._2) ) invalid += l
+      else if ( names contains l._2.substring(0, 3) ) valid += l
+      else unexpected += l
+    }
+    (valid.toList, invalid.toList, unexpected.toList)
+  }
  
   def messageSegNames(models: List[SGM]) : List[String] = {
     def loop(l : List[SGM], names : List[String]) : List[String] = {
@@ -59,17 +76,49 @@ object PreProcessor {
     * Splits the message into lines and returns a pair of list of lines.
     * The first list will contain all lines before the MSH segment
     */
-  def splitOnMSH( message: String ): (List[Line], List[Line]) =
-    ( (LazyList from 1) zip lineBreak.split( message ) ).toList span { l =>
-      !(l._2 startsWith "MSH")
+  def splitOnMSH( message: String ): (List[Line], List[Line]) = splitOnMSH(message, 1)
+
+  /**
+    * Splits the message into lines numbered from `firstLine`
+    */
+  def splitOnMSH( message: String, firstLine: Int ): (List[Line], List[Line]) = {
+    val lines = split( message )
+    val before = ListBuffer[Line]()
+    val after  = ListBuffer[Line]()
+    var i = 0
+    while ( i < lines.length ) {
+      val l = (firstLine + i) -> lines(i)
+      if ( after.isEmpty && !(lines(i) startsWith "MSH") ) before += l else after += l
+      i += 1
     }
+    (before.toList, after.toList)
+  }
 
   /**
-    * Partition the list of lines into list of valid and invalid lines.
+    * Splits the message on the line breaks (CR, LF or CRLF) in one scan.
+    * As with `lineBreak.split`, the trailing empty lines are dropped.
     */
-  private def partition(list: List[Line])
-                       (implicit fs: Char): (List[Line], List[Line]) =
-    list partition (l => validLinesRegex.pattern.matcher(l._2).matches)
+  private def split( message: String ): Array[String] = {
+    val lines = ArrayBuffer[String]()
+    val n = message.length
+    var start = 0
+    var i = 0
+    while ( i < n ) {
+      val c = message.charAt(i)
+      if ( c == '\r' || c == '\n' ) {
+        lines += message.substring(start, i)
+        i += ( if ( c == '\r' && i + 1 < n && message.charAt(i + 1) == '\n' ) 2 else 1 )
+        start = i
+      } else i += 1
+    }
+    if ( lines.isEmpty ) Array( message )
+    else {
+      lines += message.substring(start, n)
+      var last = lines.length
+      while ( last > 0 && lines(last - 1).isEmpty ) last -= 1
+      lines.take(last).toArray
+    }
+  }
 
   /**
     * Returns the separators defined in MSH.2 or a Failure
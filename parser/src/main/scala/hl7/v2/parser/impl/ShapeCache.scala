@@ -0,0 +1,122 @@
+package hl7.v2.parser.impl
+
+import java.util.concurrent.atomic.AtomicLong
+
+import hl7.v2.instance.{Group, SegOrGroup, Segment}
+import hl7.v2.profile.{Group => GM, Message => MM, SegmentRef => SM}
+
+/**
+  * A bounded LRU cache of message shapes
+  *
+  * The shape of a message is the group and instance assignment of its
+  * segments computed by the parser. It only depends on the message model
+  * and on the sequence of segment names, so the messages of a feed which
+  * share the same layout are parsed without matching their segments
+  * against the groups of the model again.
+  *
+  * The cache is thread safe and can be shared by several parsers.
+  *
+  * @param capacity - The maximum number of shapes kept in the cache
+  */
+final class ShapeCache(val capacity: Int) {
+
+  require(capacity > 0, s"The capacity of the cache should be positive. Found: $capacity")
+
+  private val shapes = new java.util.LinkedHashMap[ShapeCache.Key, Shape](16, 0.75f, true) {
+    override def removeEldestEntry(e: java.util.Map.Entry[ShapeCache.Key, Shape]): Boolean =
+      size > capacity
+  }
+
+  private val _hits   = new AtomicLong
+  private val _misses = new AtomicLong
+
+  /**
+    * The number of messages whose shape was found in the cache
+    */
+  def hits: Long = _hits.get
+
+  /**
+    * The number of messages whose shape was computed by the parser
+    */
+  def misses: Long = _misses.get
+
+  /**
+    * The number of shapes currently in the cache
+    */
+  def size: Int = shapes.synchronized { shapes.size }
+
+  /**
+    * Removes all the shapes and resets the counters
+    */
+  def clear(): Unit = {
+    shapes.synchronized { shapes.clear() }
+    _hits.set(0)
+    _misses.set(0)
+  }
+
+  private[impl] def get(key: ShapeCache.Key): Option[Shape] =
+    shapes.synchronized { Option(shapes.get(key)) } match {
+      case s @ Some(_) => _hits.incrementAndGet(); s
+      case None        => _misses.incrementAndGet(); None
+    }
+
+  private[impl] def put(key: ShapeCache.Key, shape: Shape): Unit =
+    shapes.synchronized { shapes.put(key, shape) }
+
+  override def toString = s"ShapeCache(capacity=$capacity, size=$size, hits=$hits, misses=$misses)"
+}
+
+object ShapeCache {
+
+  def apply(capacity: Int): ShapeCache = new ShapeCache(capacity)
+
+  /**
+    * The key of a shape. The message model is compared by reference,
+    * two profiles can define different structures with the same id.
+    */
+  private[impl] final class Key(val model: MM, val names: String) {
+
+    override def equals(o: Any): Boolean = o match {
+      case k: Key => (k.model eq model) && k.names == names
+      case _      => false
+    }
+
+    override def hashCode: Int = 31 * model.id.hashCode + names.hashCode
+  }
+
+  /**
+    * Returns the key of the message made of the lines
+    */
+  private[impl] def key(model: MM, lines: List[hl7.v2.instance.Line]): Key = {
+    val sb = new java.lang.StringBuilder(lines.size * 4)
+    lines foreach { l => sb.append(l.content, 0, math.min(3, l.content.length)).append('|') }
+    new Key(model, sb.toString)
+  }
+}
+
+/**
+  * The group and instance assignment of the segments of a message
+  *
+  * @param children - The shape of the children of the message in order
+  */
+private[impl] case class Shape(children: List[ShapeNode])
+
+private[impl] sealed trait ShapeNode
+
+private[impl] case class SegmentShape(model: SM, instance: Int) extends ShapeNode
+
+private[impl] case class GroupShape(model: GM, instance: Int, children: List[ShapeNode]) extends ShapeNode
+
+private[impl] object Shape {
+
+  /**
+    * Returns the shape of the children of a message
+    */
+  def of(children: List[SegOrGroup]): Shape = {
+    def node(e: SegOrGroup): ShapeNode = e match {
+      case s: Segment => SegmentShape(s.model, s.instance)
+      case g: Group   => GroupShape(g.model, g.instance, g.children map node)
+    }
+    Shape(children map node)
+  }
+}
@@ -0,0 +1,15 @@
+package hl7.v2
+
+trait Timing {
+
+  /**
+    * Runs the block and prints its elapsed time in milliseconds
+    */
+  def time[R](label: String)(block: => R): R = {
+    val t0 = System.nanoTime()
+    val result = block    // call-by-name
+    val t1 = System.nanoTime()
+    println(s"$label - Elapsed time: ${(t1 - t0) / 1000000}ms")
+    result
+  }
+}
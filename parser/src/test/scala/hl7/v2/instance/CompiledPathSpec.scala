@@ -0,0 +1,41 @@
+package hl7.v2.instance
+
+import hl7.v2.instance.Query._
+import org.specs2.Specification
+
+import scala.util.Try
+
+class CompiledPathSpec extends Specification with Mocks { def is = s2"""
+
+  Compiled path specification
+
+    Compiling a valid path should return its position and instance steps     $p1
+    Compiling an invalid path should fail with an invalid path error         $p2
+    Compiling the same path twice should return the same instance            $p3
+    Querying with a compiled path should return the same result as a string  $p4
+    Querying a simple element should report the remaining path as unreachable $p5
+  """
+
+  def p1 = {
+    val p = CompiledPath("2[2].3[*].14[4]")
+    (p.length === 3) and
+      ((0 until 3).map(p.position) === Seq(2, 3, 14)) and
+      ((0 until 3).map(p.instance) === Seq(2, CompiledPath.*, 4)) and
+      (p.isWildcard(1) must beTrue) and
+      (p.subPath(1) === "3[*].14[4]") and
+      (CompiledPath(".").length === 0)
+  }
+
+  def p2 = Seq("1", "1[a]", "0[1]", "1[0]", "1[2].", "1[2].a", "1[1]/2[2]", "01[1]", "") map { path =>
+    Try(CompiledPath(path)) must beFailedTry.withThrowable[Error]( s"Invalid Path '\\Q${path}\\E'" )
+  }
+
+  def p3 = CompiledPath("1[1].2[*]") must beTheSameAs( CompiledPath("1[1].2[*]") )
+
+  def p4 = Seq("2[*]", "2[3]", "4[1]", "4[*]", ".") map { path =>
+    query(c2, CompiledPath(path)) === query(c2, path)
+  }
+
+  def p5 = query(c2, CompiledPath("4[1].1[1].2[3]")) must
+    beFailedTry.withThrowable[Error]( "Unreachable Path '\\Q1[1].2[3]\\E'" )
+}
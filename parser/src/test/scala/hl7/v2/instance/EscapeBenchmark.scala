@@ -0,0 +1,28 @@
+package hl7.v2.instance
+
+import hl7.v2.Timing
+
+/**
+  * Compares the recursive un-escaping with the single pass one and
+  * with the un-escaped form cached on the value, for escape free and
+  * escape heavy values.
+  */
+object EscapeBenchmark extends App with EscapeSeqHandler with Timing {
+
+  implicit val separators: Separators = Separators( '|', '^', '~', '\\', '&', Some('#') )
+
+  val iterations = 2000000
+
+  val values = List(
+    "escape free"  -> Text("Erythrocyte sedimentation rate"),
+    "escape heavy" -> Text("A\\S\\B\\T\\C\\F\\D\\R\\E\\E\\F\\P\\G\\X\\H")
+  )
+
+  values foreach { case (label, v) =>
+    // Warm up
+    1 to iterations foreach { _ => EscapeSeqHandlerSpec.reference(v.raw); unescape(v.raw); v.unescaped }
+    time(s"$label (recursive)")   { 1 to iterations foreach { _ => EscapeSeqHandlerSpec.reference(v.raw) } }
+    time(s"$label (single pass)") { 1 to iterations foreach { _ => unescape(v.raw) } }
+    time(s"$label (cached)")      { 1 to iterations foreach { _ => v.unescaped } }
+  }
+}
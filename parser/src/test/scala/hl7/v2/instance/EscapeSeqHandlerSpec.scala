@@ -4,6 +4,8 @@ import org.scalacheck.{Prop, Gen}
 import org.specs2.ScalaCheck
 import org.specs2.Specification
 
+import scala.annotation.tailrec
+
 class EscapeSeqHandlerSpec
   extends Specification
   with ScalaCheck
@@ -11,6 +13,9 @@ class EscapeSeqHandlerSpec
   Escape sequence specification
 
     Escaping and un-escaping a string should return the same string $e1
+    Un-escaping should give the same result as the recursive implementation $e2
+    Un-escaping a string without escape character should return the string $e3
+    The un-escaped form of a value should be computed once              $e4
 
   """
 
@@ -20,9 +25,65 @@ class EscapeSeqHandlerSpec
   private def SepGen = Gen.oneOf("|", "^", "~", "\\", "&", "#")
   // The test string generator
   def gen = Gen.listOfN( 10, Gen.oneOf( SepGen, Gen.alphaStr ) )
+  // The escape sequence generator
+  private def EscGen = Gen.oneOf("\\F\\", "\\S\\", "\\T\\", "\\R\\", "\\E\\", "\\P\\", "\\X\\", "\\", "\\\\")
 
   def e1 = Prop.forAll( gen ) { (l: List[String]) =>
     val s = l.mkString
     unescape( escape( s ) ) === s
   }
+
+  def e2 = Prop.forAll( Gen.listOfN( 10, Gen.oneOf( EscGen, SepGen, Gen.alphaStr ) ) ) { (l: List[String]) =>
+    val s = l.mkString
+    val withoutTruncation = separators.copy(tc = None)
+    (unescape( s ) === EscapeSeqHandlerSpec.reference( s )) and
+      (unescape( s )(withoutTruncation) === EscapeSeqHandlerSpec.reference( s )(withoutTruncation))
+  }
+
+  def e3 = {
+    val s = "Jones^William|A&JR~L#"
+    unescape( s ) must be( s )
+  }
+
+  def e4 = {
+    val v = Text("Jones\\S\\William")
+    val plain = Text("Jones")
+    (v.unescaped === "Jones^William") and (v.unescaped must be( v.unescaped )) and
+      (plain.unescaped must be( plain.raw ))
+  }
+}
+
+object EscapeSeqHandlerSpec {
+
+  /**
+    * The recursive implementation used before the single pass one
+    */
+  def reference(s: String)(implicit  separators: Separators): String = {
+
+    val( fs, cs, rs, ec, ss, otc) = Separators.unapply( separators ).get
+
+    val escapeTruncation = otc match { case None => false case _ => true }
+    val efs = s"${ec}F$ec"
+    val ecs = s"${ec}S$ec"
+    val ess = s"${ec}T$ec"
+    val ers = s"${ec}R$ec"
+    val eec = s"${ec}E$ec"
+    val etc = s"${ec}P$ec"
+
+    @tailrec
+    def f(sb: StringBuilder, s: String): String =
+      s span ( _ != ec ) match {
+        case (x, "") => sb.append(x).toString()
+        case (x, y) if y.take(3) == efs => f( sb.append(x).append(fs), y drop 3 )
+        case (x, y) if y.take(3) == ecs => f( sb.append(x).append(cs), y drop 3 )
+        case (x, y) if y.take(3) == ess => f( sb.append(x).append(ss), y drop 3 )
+        case (x, y) if y.take(3) == ers => f( sb.append(x).append(rs), y drop 3 )
+        case (x, y) if y.take(3) == eec => f( sb.append(x).append(ec), y drop 3 )
+        case (x, y) if escapeTruncation && y.take(3) == etc =>
+          f( sb.append(x).append( otc.get ), y drop 3 )
+        case (x, y) => f( sb.append(x).append(ec), y drop 1 )
+      }
+
+    f( new StringBuilder, s )
+  }
 }
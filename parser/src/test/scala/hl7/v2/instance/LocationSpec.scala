@@ -0,0 +1,37 @@
+package hl7.v2.instance
+
+import org.specs2.Specification
+
+class LocationSpec extends Specification { def is = s2"""
+
+  Location specification
+
+    The path and uid path of a field should be built from its parent          $l1
+    The type of a child location should depend on the parent type             $l2
+    A derived location should be equal to the explicit one                    $l3
+    Copying a derived location should keep its paths                          $l4
+  """
+
+  val segment = Location(EType.Segment, "Observation", "OBX", 3, 1, "OBX[2]")
+
+  val field = segment.field("Observation Value", 5, 2, 20)
+
+  val subComponent = field.component("Identifier", 1, 20).component("Namespace", 2, 24)
+
+  def l1 = (field.path === "OBX-5") and (field.uidPath === "OBX[2]-5[2]") and
+    (subComponent.path === "OBX-5.1.2") and (subComponent.uidPath === "OBX[2]-5[2].1.2") and
+    (field.prettyString === "Field OBX-5 (Observation Value)")
+
+  def l2 = (field.eType === EType.Field) and
+    (field.component("Identifier", 1, 20).eType === EType.Component) and
+    (subComponent.eType === EType.SubComponent)
+
+  def l3 = {
+    val explicit = Location(EType.SubComponent, "Namespace", "OBX-5.1.2", 3, 24, "OBX[2]-5[2].1.2")
+    (subComponent === explicit) and (subComponent.hashCode === explicit.hashCode) and
+      (subComponent.toString === explicit.toString)
+  }
+
+  def l4 = subComponent.copy(column = 30) === Location(EType.SubComponent,
+    "Namespace", "OBX-5.1.2", 3, 30, "OBX[2]-5[2].1.2")
+}
@@ -0,0 +1,104 @@
+package hl7.v2.instance
+
+import hl7.v2.Timing
+import hl7.v2.parser.impl.DefaultParser
+import hl7.v2.profile.XMLDeserializer
+
+import scala.util.{Failure, Success, Try}
+
+/**
+  * Compares the query using the regular expression based path
+  * resolution with the query using a compiled path on a large
+  * ORU message.
+  */
+object QueryBenchmark extends App with DefaultParser with Timing {
+
+  /**
+    * The regular expression based query used before the compiled paths
+    */
+  def regexQuery(context: Element, path: String): Try[List[Element]] = Try {
+    if(path.equals(".")) List(context)
+    else if( Path.isValid(path) ) _regexQuery(context, path)
+    else throw new Error(s"Invalid Path '$path'")
+  }
+
+  private def _regexQuery(context: Element, path: String): List[Element] = path match {
+    case Path.extractor(position, instance, subPath) =>
+      context match {
+        case s: Simple  => throw new Error(s"Unreachable Path '$path'")
+        case c: Complex =>
+          val list = c.children filter { cc =>
+            cc.position == position.toInt && ("*" == instance || cc.instance == instance.toInt)
+          }
+          if( subPath == null ) list
+          else list.foldLeft( List[Element]() ) { (acc, child) => acc ++ _regexQuery(child, subPath) }
+      }
+    case _ => throw new Error(s"Invalid Path '$path'")
+  }
+
+  val xml = getClass.getResourceAsStream("/Profile.xml")
+
+  val profile = XMLDeserializer.deserialize( xml ) match {
+    case Success(p) => p
+    case Failure(e) => throw e
+  }
+
+  val mm = profile.messages("ORU_R01")
+
+  val obx = "OBX|1|CWE|30341-2^Erythrocyte sedimentation rate^LN^815117^ESR^99USI||10^^LN~11^^LN|mm/h^millimeter per hour^UCUM|0 to 17|N|||F|||20110331140551-0800"
+
+  val m = (
+    "MSH|^~\\&#|NIST Test Lab APP^2.16.840.1.113883.3.72.5.20^ISO|NIST Lab Facility^2.16.840.1.113883.3.72.5.21^ISO||NIST EHR Facility^2.16.840.1.113883.3.72.5.23^ISO|20110531140551-0500||ORU^R01^ORU_R01|NIST-LRI-GU-001.00|T|2.5.1" ::
+    "PID|1||PATID1234^^^NIST MPI&2.16.840.1.113883.3.72.5.30.2&ISO^MR||Jones^William^A^JR^^^L||19610615|M" ::
+    "ORC|RE|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO" ::
+    "OBR|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO|30341-2^Erythrocyte sedimentation rate^LN" ::
+    List.fill(500)(obx)
+  ).mkString("\r")
+
+  val message = parse(m, mm).get
+
+  def segments(e: Element): List[Element] = e match {
+    case s: Segment => List(s)
+    case c: Complex => c.children flatMap segments
+    case _ => Nil
+  }
+
+  val contexts = segments(message.asGroup)
+  val paths = List("3[1].1[1]", "3[1].4[1]", "5[*]", "5[*].1[1]", "11[1]", "1[1]")
+  val compiled = paths map { p => CompiledPath(p) }
+
+  val iterations = 200
+
+  def run(q: (Element, Int) => Try[List[Element]]): Int = {
+    var n = 0
+    1 to iterations foreach { _ =>
+      contexts foreach { c => paths.indices foreach { i => n += q(c, i).get.size } }
+    }
+    n
+  }
+
+  // Warm up
+  run( (c, i) => regexQuery(c, paths(i)) )
+  run( (c, i) => Query.query(c, compiled(i)) )
+
+  time("Regex query")         { run( (c, i) => regexQuery(c, paths(i)) ) }
+  time("String query")        { run( (c, i) => Query.query(c, paths(i)) ) }
+  time("Compiled path query") { run( (c, i) => Query.query(c, compiled(i)) ) }
+
+  // Children lookup on wide segments (PID and OBR)
+  val wide = contexts collect { case s: Segment if s.model.ref.name == "PID" || s.model.ref.name == "OBR" => s }
+
+  def lookup(f: (Complex, Int) => List[Element]): Int = {
+    var n = 0
+    1 to iterations * 100 foreach { _ =>
+      wide foreach { s => 1 to 50 foreach { p => n += f(s, p).size } }
+    }
+    n
+  }
+
+  lookup( (c, p) => c.children filter ( _.position == p ) )
+  lookup( (c, p) => c.childrenAt(p) )
+
+  time("Wide segments - children filter") { lookup( (c, p) => c.children filter ( _.position == p ) ) }
+  time("Wide segments - children at")     { lookup( (c, p) => c.childrenAt(p) ) }
+}
@@ -28,6 +28,7 @@ class QuerySpec extends Specification with Mocks { def is = s2"""
     Querying s0 for the path  .   should return s0                                                  $q11    
     Querying c2 for the path  .   and casting the result as list of `Simple' should return an error $q12    
     Querying s0 for the path  .   and casting the result as list of `Simple' should retrun s0       $q13    
+    The children of c2 at a position should be returned in order, missing positions are empty      $q14
 """
 
   def q1 = Seq("1", "1[a]", "0[1]", "1[2].", "1[2].a", "1[1]/2[2]" ) map { p =>
@@ -60,4 +61,7 @@ class QuerySpec extends Specification with Mocks { def is = s2"""
     beFailedTry.withThrowable[Error]("Path resolution returned at least one complex element")
     
   def q13 = queryAsSimple(s0, ".") must beSuccessfulTry.withValue( ===( Seq[Simple]( s0 ) ) )
+
+  def q14 = (c2.childrenAt(2) === List(c0, c1)) and (c2.childrenAt(4) === List(s0)) and
+    (c2.childrenAt(1) === Nil) and (c2.childrenAt(40) === Nil)
 }
@@ -0,0 +1,33 @@
+package hl7.v2.instance
+
+import org.specs2.Specification
+
+class SpansSpec extends Specification { def is = s2"""
+
+  Spans specification
+
+    Splitting should produce the same tokens as String.split                 $s1
+    Splitting a range should only consider the characters in the range       $s2
+    Accessing a token out of bounds should fail                              $s3
+    Each nesting level should have its own spans                             $s4
+  """
+
+  val inputs = Seq( "", "|", "||", "a", "a|", "|a", "a||b", "a|b|", "a|b||", "|||a|||",
+    "MSH|^~\\&|X", "x^y&z|~|" )
+
+  def tokens(sp: Spans, s: String) = (0 until sp.size) map { i => s.substring(sp.start(i), sp.end(i)) }
+
+  def s1 = inputs map { s =>
+    tokens( new Spans().split('|', s, 0, s.length), s ) === s.split('|').toSeq
+  }
+
+  def s2 = {
+    val s = "PID|a|b||"
+    val sp = new Spans().split('|', s, 4, 7)
+    tokens(sp, s) === Seq("a", "b")
+  }
+
+  def s3 = new Spans().split('|', "||", 0, 2).start(0) must throwA[ArrayIndexOutOfBoundsException]
+
+  def s4 = (Spans.level(0) must not be(Spans.level(1))) and (Spans.level(2) must be(Spans.level(2)))
+}
@@ -0,0 +1,32 @@
+package hl7.v2.instance
+
+import org.specs2.Specification
+
+class SyntaxSpec extends Specification { def is = s2"""
+
+  Syntax specification
+
+    The segment check should agree with the segment format regular expression   $s1
+    The empty field check should agree with the empty field regular expression  $s2
+    The empty component check should agree with the regular expression          $s3
+  """
+
+  def s1 = {
+    val regex = "[A-Z]{2}[A-Z0-9](?:\\Q|\\E.*)*".r.pattern
+    val lines = Seq( "", "PI", "PID", "PID|", "PID|a|b", "PIDa", "pid|", "P1D|", "PI1|x",
+      "PID|a\nb", "PID|a\u0085", "PID|a |", "ZZZ||||", "MSH|^~\\&#" )
+    lines map { l => Syntax.isValidSegment('|', l) === regex.matcher(l).matches }
+  }
+
+  def s2 = {
+    val regex = "(:?\\s|\\Q^\\E|\\Q&\\E)*"
+    val values = Seq( "", " ", "^^", "^&^ ", "a", ": ", ":", "::", ":: ", "^:\t^", " ^ :a", "\"\"" )
+    values map { v => Syntax.isEmptyField('^', '&', v, 0, v.length) === v.matches(regex) }
+  }
+
+  def s3 = {
+    val regex = "(?:\\s*&*\\s*)*"
+    val values = Seq( "", " ", "&&", " & & ", "a", "&a&", "^" )
+    values map { v => Syntax.isEmptyComponent('&', v, 0, v.length) === v.matches(regex) }
+  }
+}
@@ -14,6 +14,10 @@ class ValueComparatorSpec extends Specification with ScalaCheck { def is = s2"""
     Comparing number with another comparable should fail if one format is invalid $n4
     Comparing number with another comparable should succeed if both formats are valid $n5
 
+  Typed Value Specification
+    The typed forms of a value should be computed once                          $t1
+    The time in milliseconds should depend on the default time zone             $t2
+
 
 """
 
@@ -46,4 +50,18 @@ class ValueComparatorSpec extends Specification with ScalaCheck { def is = s2"""
 
   //TODO: TO BE COMPLETED
 
+
+  def t1 = {
+    val v = Text("20140301")
+    (v.asNumber must be(v.asNumber)) and (v.asDate must be(v.asDate)) and
+      (v.asDateTime must be(v.asDateTime)) and (v.asTime must beFailedTry) and
+      (v.asNumber must beSuccessfulTry(20140301.0))
+  }
+
+  def t2 = {
+    val v = Time("0100")
+    (v.asMilliSeconds(Some(TimeZone("+0000"))) must beSuccessfulTry(3600000L)) and
+      (v.asMilliSeconds(Some(TimeZone("+0100"))) must beSuccessfulTry(7200000L)) and
+      (v.asMilliSeconds(None) must beFailedTry)
+  }
 }
@@ -0,0 +1,105 @@
+package hl7.v2.parser
+
+import java.io.ByteArrayInputStream
+import java.nio.ByteBuffer
+import java.nio.charset.{Charset, StandardCharsets}
+
+import hl7.v2.parser.impl.DefaultParser
+import hl7.v2.profile.XMLDeserializer
+import org.specs2.Specification
+
+class MessageDecoderSpec extends Specification with DefaultParser { def is = s2"""
+
+  Message decoder specification
+
+    MSH-18 should be read from the bytes                                      $d1
+    The message should be decoded using the character set of MSH-18          $d2
+    The default character set should be used if MSH-18 is missing or unknown $d3
+    A message starting with a UTF-16 byte order mark should be decoded        $d4
+    Parsing bytes should give the same message as parsing the string         $d5
+    A UTF-8 byte order mark should be dropped                                 $d6
+    A UTF-16 message without byte order mark should be decoded                $d7
+    A UTF-32 message with or without byte order mark should be decoded        $d8
+    A UTF-16 or UTF-32 batch without byte order mark should be decoded        $d9
+  """
+
+  def msh(charset: String) =
+    s"MSH|^~\\&|APP|FAC|||20110531||ORU^R01^ORU_R01|ID|T|2.5.1|||AL|NE||$charset|||\rPID|1||ID||Dupré^René"
+
+  def msh18(s: String) = {
+    val b = s.getBytes(StandardCharsets.ISO_8859_1)
+    MessageDecoder.msh18(b, 0, b.length)
+  }
+
+  def d1 = (msh18(msh("8859/1")) must beSome("8859/1")) and
+    (msh18(msh("UNICODE UTF-8~8859/1")) must beSome("UNICODE UTF-8")) and
+    (msh18(msh("")) must beNone) and
+    (msh18("XYZ\r" + msh("ASCII")) must beSome("ASCII")) and
+    (msh18("MSH|^~\\&|APP") must beNone)
+
+  def d2 = {
+    val latin1 = msh("8859/1")
+    val utf8 = msh("UNICODE UTF-8")
+    (MessageDecoder.decode(latin1.getBytes(StandardCharsets.ISO_8859_1)) === latin1) and
+      (MessageDecoder.decode(utf8.getBytes(StandardCharsets.UTF_8)) === utf8)
+  }
+
+  def d3 = {
+    val missing = msh("")
+    val unknown = msh("XX")
+    (MessageDecoder.decode(missing.getBytes(StandardCharsets.UTF_8)) === missing) and
+      (MessageDecoder.decode(unknown.getBytes(StandardCharsets.UTF_8)) === unknown)
+  }
+
+  def d4 = {
+    val m = msh("UNICODE UTF-16")
+    MessageDecoder.decode(m.getBytes(StandardCharsets.UTF_16)) === m
+  }
+
+  def d5 = {
+    val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+    val mm = profile.messages("ORU_R01")
+    val m = msh("8859/1")
+    val bytes = m.getBytes(StandardCharsets.ISO_8859_1)
+    val expected = parse(m, mm).get
+    val buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()
+    (parse(bytes, mm).get === expected) and
+      (parse(buffer, mm).get === expected) and
+      (parse(new ByteArrayInputStream(bytes), mm).get === expected)
+  }
+
+  def bom(bom: Int*)(bytes: Array[Byte]) = bom.map(_.toByte).toArray ++ bytes
+
+  def d6 = {
+    val m = msh("UNICODE UTF-8")
+    val bytes = bom(0xEF, 0xBB, 0xBF)(m.getBytes(StandardCharsets.UTF_8))
+    (MessageDecoder.decode(bytes) === m) and
+      (MessageDecoder.decode(bom(0xEF, 0xBB, 0xBF)(msh("8859/1").getBytes(StandardCharsets.UTF_8))) === msh("8859/1"))
+  }
+
+  def d7 = {
+    val m = msh("UNICODE UTF-16")
+    (MessageDecoder.decode(m.getBytes(StandardCharsets.UTF_16BE)) === m) and
+      (MessageDecoder.decode(m.getBytes(StandardCharsets.UTF_16LE)) === m) and
+      (MessageDecoder.decode(bom(0xFF, 0xFE)(m.getBytes(StandardCharsets.UTF_16LE))) === m)
+  }
+
+  def d8 = {
+    val m = msh("UNICODE UTF-32")
+    val be = m.getBytes(Charset.forName("UTF-32BE"))
+    val le = m.getBytes(Charset.forName("UTF-32LE"))
+    (MessageDecoder.decode(be) === m) and (MessageDecoder.decode(le) === m) and
+      (MessageDecoder.decode(bom(0x00, 0x00, 0xFE, 0xFF)(be)) === m) and
+      (MessageDecoder.decode(bom(0xFF, 0xFE, 0x00, 0x00)(le)) === m)
+  }
+
+  def d9 = {
+    val file  = "FHS|^~\\&|APP|FAC\rBHS|^~\\&|APP|FAC\r" + msh("UNICODE UTF-16") + "\rBTS|1\rFTS|1"
+    val batch = "BHS|^~\\&|APP|FAC\r" + msh("UNICODE UTF-32") + "\rBTS|1"
+    List("UTF-16BE", "UTF-16LE", "UTF-32BE", "UTF-32LE") map { name =>
+      val cs = Charset.forName(name)
+      (MessageDecoder.decode(file.getBytes(cs)) === file) and
+        (MessageDecoder.decode(batch.getBytes(cs)) === batch)
+    } reduce { _ and _ }
+  }
+}
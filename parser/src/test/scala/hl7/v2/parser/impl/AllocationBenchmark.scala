@@ -0,0 +1,51 @@
+package hl7.v2.parser.impl
+
+import java.lang.management.ManagementFactory
+
+import hl7.v2.instance.{Complex, Element}
+import hl7.v2.profile.XMLDeserializer
+
+import scala.util.{Failure, Success}
+
+/**
+  * Measures the number of bytes allocated per parsed message
+  */
+object AllocationBenchmark extends App with DefaultParser {
+
+  val threads = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+
+  def allocated[R](block: => R): (R, Long) = {
+    val id = Thread.currentThread().getId
+    val b0 = threads.getThreadAllocatedBytes(id)
+    val result = block    // call-by-name
+    (result, threads.getThreadAllocatedBytes(id) - b0)
+  }
+
+  val xml = getClass.getResourceAsStream("/Profile.xml")
+
+  val profile = XMLDeserializer.deserialize( xml ) match {
+    case Success(p) => p
+    case Failure(e) => throw e
+  }
+
+  val mm = profile.messages("ORU_R01")
+
+  val m = LabMessage(100)
+
+  /**
+    * Forces every element so that lazily built ones are counted
+    */
+  def touch(e: Element): Int = e match {
+    case c: Complex => c.children.foldLeft(1)( _ + touch(_) )
+    case _ => 1
+  }
+
+  val iterations = 200
+
+  1 to iterations foreach { _ => touch(parse(m, mm).get.asGroup) }
+
+  val (_, bytes) = allocated {
+    1 to iterations foreach { _ => touch(parse(m, mm).get.asGroup) }
+  }
+  println(s"Allocated bytes per parsed message (104 segments): ${bytes / iterations}")
+}
@@ -0,0 +1,64 @@
+package hl7.v2.parser.impl
+
+import java.io.{ByteArrayInputStream, StringReader}
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import hl7.v2.instance.{Group, SegOrGroup, Segment}
+import hl7.v2.profile.XMLDeserializer
+import org.specs2.Specification
+
+class BatchReaderSpec extends Specification with DefaultParser { def is = s2"""
+
+  Batch reader specification
+
+    The reader should split the input at the MSH segments                     $b1
+    The reader should skip the batch envelope segments                        $b2
+    The reader should keep the line numbers of the input                      $b3
+    The reader should keep the lines before a message with the message        $b4
+    The reader should read a file through a channel                           $b5
+    Parsing from a line should keep the line numbers of the input             $b6
+  """
+
+  def messages(s: String) = new BatchReader(new StringReader(s)).toList
+
+  val m1 = "MSH|^~\\&|A\rPID|1"
+  val m2 = "MSH|^~\\&|B\rPID|2\rOBX|1"
+
+  def b1 = messages(s"$m1\r$m2\r") === List(BatchMessage(1, s"$m1\r"), BatchMessage(3, s"$m2\r"))
+
+  def b2 = {
+    val batch = s"FHS|^~\\&\nBHS|^~\\&\n$m1\n$m2\nBTS|2\nFTS|1\n"
+    messages(batch).map(_.content) === List(s"$m1\r", s"$m2\r")
+  }
+
+  def b3 = {
+    val batch = s"FHS|^~\\&\r\nBHS|^~\\&\r\n\r\nMSH|A\r\nPID|1\r\n\r\nMSH|B\nBTS|2\rFTS|1"
+    messages(batch) === List(BatchMessage(4, "MSH|A\rPID|1\r\r"), BatchMessage(7, "MSH|B\r"))
+  }
+
+  def b4 = messages(s"BHS|^~\\&\rXYZ\r$m1") === List(BatchMessage(2, s"XYZ\r$m1\r"))
+
+  def b5 = {
+    val file = Files.createTempFile("batch", ".hl7")
+    try {
+      Files.write(file, s"FHS|^~\\&\r$m1\r$m2\rFTS|1".getBytes(StandardCharsets.UTF_8))
+      val reader = BatchReader(file)
+      val r = try reader.toList finally reader.close()
+      r === List(BatchMessage(2, s"$m1\r"), BatchMessage(4, s"$m2\r"))
+    } finally Files.delete(file)
+  }
+
+  def b6 = {
+    val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+    val in = new ByteArrayInputStream(s"FHS|^~\\&\rBHS|^~\\&\r${LabMessage(2)}\rBTS|1".getBytes)
+    val m = BatchReader(in, StandardCharsets.UTF_8).next()
+    val segments = segmentsOf( parse(m.content, profile.messages("ORU_R01"), m.firstLine).get.asGroup )
+    segments.map(_.location.line) === (3 to 8).toList
+  }
+
+  private def segmentsOf(e: SegOrGroup): List[Segment] = e match {
+    case s: Segment => List(s)
+    case g: Group   => g.children.flatMap(segmentsOf)
+  }
+}
@@ -1,4 +1,3 @@
 package hl7.v2.parser.impl
 
 object DefaultParserSpec extends ParserSpec with DefaultParser
-
@@ -0,0 +1,8 @@
+package hl7.v2.parser.impl
+
+/**
+  * Reruns the parser specification with segments built lazily
+  */
+object LazyParserSpec extends ParserSpec with DefaultParser {
+  override def lazySegments = true
+}
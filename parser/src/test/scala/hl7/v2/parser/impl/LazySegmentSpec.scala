@@ -0,0 +1,53 @@
+package hl7.v2.parser.impl
+
+import java.util.concurrent.{ Callable, CountDownLatch, Executors, TimeUnit }
+
+import hl7.v2.instance.{ Field, Group, SegOrGroup, Segment }
+import hl7.v2.profile.XMLDeserializer
+import org.specs2.Specification
+
+class LazySegmentSpec extends Specification with DefaultParser { def is = s2"""
+
+  Lazy segment specification
+
+    A lazy segment should have the fields of the eager segment                  $l1
+    A lazy segment read from several threads should build its fields once      $l2
+  """
+
+  override def lazySegments = true
+
+  val mm = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get.messages("ORU_R01")
+
+  val text = LabMessage(200)
+
+  val eager = new DefaultParser {}
+
+  def segments(e: SegOrGroup): List[Segment] = e match {
+    case s: Segment => List(s)
+    case g: Group   => g.children flatMap segments
+  }
+
+  def l1 = {
+    val expected = segments( eager.parse(text, mm).get.asGroup )
+    val actual   = segments( parse(text, mm).get.asGroup )
+    (actual.size === expected.size) and (actual === expected) and
+      (actual.map(_.hasExtra) === expected.map(_.hasExtra))
+  }
+
+  def l2 = {
+    val threads = 8
+    val ss = segments( parse(text, mm).get.asGroup )
+    val start = new CountDownLatch(1)
+    val pool = Executors.newFixedThreadPool(threads)
+    val reads = List.fill(threads) {
+      pool.submit(new Callable[List[List[Field]]] {
+        def call(): List[List[Field]] = { start.await(); ss map { _.children } }
+      })
+    }
+    start.countDown()
+    val results = reads map { _.get(30, TimeUnit.SECONDS) }
+    pool.shutdown()
+    (results.head.exists(_.nonEmpty) must beTrue) and
+      (results.tail map { r => (r zip results.head) forall { case (x, y) => x eq y } must beTrue })
+  }
+}
@@ -0,0 +1,99 @@
+package hl7.v2.parser.impl
+
+import hl7.v2.Timing
+import hl7.v2.instance.{Counter, Line, Segment, Separators}
+import hl7.v2.profile.{Req, SegmentRef, Usage, XMLDeserializer}
+
+import scala.util.{Failure, Success}
+
+/**
+  * Measures the parse only throughput on large lab messages
+  */
+object ParseBenchmark extends App with DefaultParser with Timing {
+
+  val xml = getClass.getResourceAsStream("/Profile.xml")
+
+  val profile = XMLDeserializer.deserialize( xml ) match {
+    case Success(p) => p
+    case Failure(e) => throw e
+  }
+
+  val mm = profile.messages("ORU_R01")
+
+  def message(observations: Int) = LabMessage(observations)
+
+  val lazyParser = new DefaultParser { override def lazySegments = true }
+
+  val cachedParser = new DefaultParser {
+    override def lazySegments = true
+    override val shapeCache = Some(ShapeCache(16))
+  }
+
+  // The lazy mode mostly measures the group assignment
+  List(50, 500, 5000) foreach { n =>
+    val m = message(n)
+    val iterations = math.max(20000 / n, 20)
+    List("eager" -> this, "lazy" -> lazyParser, "lazy, cached shape" -> cachedParser) foreach { case (mode, parser) =>
+      // Warm up
+      1 to iterations foreach { _ => parser.parse(m, mm).get }
+      val t0 = System.nanoTime()
+      1 to iterations foreach { _ => parser.parse(m, mm).get }
+      val ms = (System.nanoTime() - t0) / 1000000.0
+      println(f"$n%5d OBX ($mode) - ${iterations / ms * 1000}%.1f messages/s, ${iterations * n / ms * 1000}%.0f segments/s")
+    }
+  }
+
+  println(cachedParser.shapeCache.get)
+
+  // Pre-processing only (line splitting and classification)
+  val large = message(5000)
+  1 to 50 foreach { _ => PreProcessor.process(large, mm).get }
+  1 to 3 foreach { _ =>
+    time("Pre-processing of 5000 OBX x 50") { 1 to 50 foreach { _ => PreProcessor.process(large, mm).get } }
+  }
+
+  // Segment construction only (tokenizer and element creation)
+  val obxRef = SegmentRef( Req(1, "OBX", Usage.O, None, None, None, Nil),
+    profile.segments.values.find( _.name == "OBX" ).get )
+  implicit val separators: Separators = Separators('|', '^', '~', '\\', '&', Some('#'))
+
+  def segments(n: Int): Unit = {
+    implicit val counter: Counter = Counter(scala.collection.mutable.Map[String, Int]())
+    1 to n foreach { i => Segment(obxRef, LabMessage.obx, i, i) }
+  }
+
+  segments(100000)
+  time("100000 OBX segments") { segments(100000) }
+
+  // Group assignment only, on pre-processed lines and with lazy segments
+  object assignment extends DefaultParser {
+    override def lazySegments = true
+    def apply(lines: List[Line]): Unit = {
+      implicit val counter: Counter = Counter(scala.collection.mutable.Map[String, Int]())
+      processChildren(mm.structure, lines)
+    }
+  }
+
+  val lines = PreProcessor.process(message(5000), mm).get.valid map { x => Line(x._1, x._2) }
+  1 to 200 foreach { _ => assignment(lines) }
+  1 to 5 foreach { _ =>
+    time("Group assignment of 5000 OBX x 200") { 1 to 200 foreach { _ => assignment(lines) } }
+  }
+}
+
+/**
+  * A lab result message with a variable number of observations
+  */
+private[impl] object LabMessage {
+
+  val header = List(
+    "MSH|^~\\&#|NIST Test Lab APP^2.16.840.1.113883.3.72.5.20^ISO|NIST Lab Facility^2.16.840.1.113883.3.72.5.21^ISO||NIST EHR Facility^2.16.840.1.113883.3.72.5.23^ISO|20110531140551-0500||ORU^R01^ORU_R01|NIST-LRI-GU-001.00|T|2.5.1|||AL|NE|||||LRI_Common_Component^Profile Component^2.16.840.1.113883.9.16^ISO~LRI_GU_Component^Profile Component^2.16.840.1.113883.9.12^ISO",
+    "PID|1~2~\"\"||PATID1234^^^NIST MPI&2.16.840.1.113883.3.72.5.30.2&ISO^MR||Jones^William^A^JR^^^L||19610615|M||2106-3^White^HL70005^CAUC^Caucasian^L",
+    "ORC|RE|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO|GORD874211^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO||||||||57422^Radon^Nicholas^M^JR^DR^^^NIST-AA-1&2.16.840.1.113883.3.72.5.30.1&ISO^L^^^NPI",
+    "OBR|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO|30341-2^Erythrocyte sedimentation rate^LN^815115^Erythrocyte sedimentation rate^99USI^^^Erythrocyte sedimentation rate|||20110331140551-0800||||L||7520000^fever of unknown origin^SCT^22546000^fever, origin unknown^99USI^^^Fever of unknown origin|||57422^Radon^Nicholas^M^JR^DR^^^NIST-AA-1&2.16.840.1.113883.3.72.5.30.1&ISO^L^^^NPI||||||20110331160428-0800|||F"
+  )
+
+  val obx = "OBX|1|NM|30341-2^Erythrocyte sedimentation rate^LN^815117^ESR^99USI^^^Erythrocyte sedimentation rate||10|mm/h^millimeter per hour^UCUM|0 to 17|N|||F|||20110331140551-0800|||||20110331150551-0800||||Century Hospital^^^^^NIST-AA-1&2.16.840.1.113883.3.72.5.30.1&ISO^XX^^^987|2070 Test Park^^Los Angeles^CA^90067^USA^B^^06037|2343242^Knowsalot^Phil^J.^III^Dr.^^^NIST-AA-1&2.16.840.1.113883.3.72.5.30.1&ISO^L^^^DN"
+
+  def apply(observations: Int): String = (header ::: List.fill(observations)(obx)).mkString("\r")
+}
@@ -0,0 +1,35 @@
+package hl7.v2.parser.impl
+
+import hl7.v2.profile.XMLDeserializer
+import org.specs2.Specification
+
+class PreProcessorSpec extends Specification { def is = s2"""
+
+  Pre-processor specification
+
+    The lines should be split as with the line break regular expression       $p1
+    The lines before the MSH segment should be kept apart                     $p2
+    The lines should be classified as valid, invalid or unexpected           $p3
+  """
+
+  def reference(m: String, firstLine: Int) =
+    ( (LazyList from firstLine) zip lineBreak.split( m ) ).toList span { l => !(l._2 startsWith "MSH") }
+
+  def p1 = {
+    val messages = Seq( "", "\r", "\r\n\n", "MSH", "MSH|\rPID|1", "MSH|\r\nPID|1\r\n", "MSH|\n\rPID|1",
+      "A\r\rMSH|\r\r", "MSH|\r\n\r\nPID|1\n\n\r", "\nMSH|\rPID\r\n", "MSH|\u0085PID|1\r" )
+    messages map { m => PreProcessor.splitOnMSH(m, 3) === reference(m, 3) }
+  }
+
+  def p2 = PreProcessor.splitOnMSH("XYZ\r\rMSH|1\rPID|1\rMSH|2") ===
+    (List(1 -> "XYZ", 2 -> "") -> List(3 -> "MSH|1", 4 -> "PID|1", 5 -> "MSH|2"))
+
+  def p3 = {
+    val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+    val m = "MSH|^~\\&|A\rPID|1\rpid|1\rZZZ|1\rOBX\rOBXX|1\rPID|1\u0085\rSFT|1"
+    val ppr = PreProcessor.process(m, profile.messages("ORU_R01")).get
+    (ppr.valid.map(_._1) === List(1, 2, 5, 8)) and
+      (ppr.invalid.map(_._1) === List(3, 6, 7)) and
+      (ppr.unexpected.map(_._1) === List(4))
+  }
+}
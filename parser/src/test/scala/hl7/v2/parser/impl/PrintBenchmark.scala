@@ -0,0 +1,27 @@
+package hl7.v2.parser.impl
+
+import hl7.v2.Timing
+import hl7.v2.profile.XMLDeserializer
+
+/**
+  * Compares the printing of messages with the string concatenation one
+  */
+object PrintBenchmark extends App with DefaultParser with Timing {
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+  val mm = profile.messages("ORU_R01")
+
+  val replacements = Some( Map("PID-5-1" -> "Doe", "PID-5-2" -> "John", "PID-3-1" -> "ID", "OBX-5" -> "X") )
+
+  List(50, 500, 2000) foreach { n =>
+    val m = parse(LabMessage(n), mm).get
+    val iterations = math.max(5000 / n, 3)
+    1 to iterations foreach { _ => m.printString(replacements); PrintStringSpec.printString(m, replacements) }
+    time(s"$n OBX x $iterations (concatenation)") {
+      1 to iterations foreach { _ => PrintStringSpec.printString(m, replacements) }
+    }
+    time(s"$n OBX x $iterations (writer)") {
+      1 to iterations foreach { _ => m.printString(replacements) }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package hl7.v2.parser.impl
+
+import java.io.StringWriter
+
+import hl7.v2.instance._
+import hl7.v2.profile.XMLDeserializer
+import org.specs2.Specification
+
+class PrintStringSpec extends Specification with DefaultParser { def is = s2"""
+
+  Message printing specification
+
+    The message should be printed as with the string concatenation           $p1
+    The values should be replaced as with the string concatenation           $p2
+    Writing the message should give the printed string                       $p3
+    Printing a segment, a field or a component should not change             $p4
+  """
+
+  import PrintStringSpec._
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+
+  val m = parse(LabMessage(3) + "\rSPM|1|||||||||||||||||||||||||||||", profile.messages("ORU_R01")).get
+
+  val replacements = Map("PID-5-1" -> "Doe", "PID-05-2" -> "John", "PID-3-1" -> "ID",
+    "OBX-5" -> "X", "MSH-10" -> "CTRL", "OBX-3-2" -> "Y")
+
+  def p1 = m.printString() === printString(m, None)
+
+  def p2 = (m.printString(Some(replacements)) === printString(m, Some(replacements))) and
+    (m.printString(Some(Map())) === printString(m, None))
+
+  def p3 = {
+    val w = new StringWriter
+    m.print(w, Some(replacements))
+    w.toString === m.printString(Some(replacements))
+  }
+
+  def p4 = {
+    val r = Some(replacements)
+    val pid = m.asGroup.children.collectFirst { case g: Group => g }.get
+    val segment = m.children.head.asInstanceOf[Segment]
+    val fields = segment.children
+    val components = fields flatMap { case f: ComplexField => f.children case _ => Nil }
+    (m.segOrGroupAsString(pid, false, r) === segOrGroupAsString(m, pid, false, r)) and
+      (fields map { f => m.fieldAsString(f, r) === fieldAsString(m, f, r) }) and
+      (components map { c => m.componentAsString(c, r) === componentAsString(m, c, r) })
+  }
+}
+
+object PrintStringSpec {
+
+  // The string concatenation printing used as a reference
+
+  def printString(m: Message, toBeReplaced: Option[Map[String,String]]): String = {
+    var message = ""
+    var isFirst = true
+    for(segOrGroup <- m.children) {
+      message+=segOrGroupAsString(m, segOrGroup,isFirst,toBeReplaced)
+      isFirst=false
+    }
+    if (message.endsWith("\n")) {
+      message = message.substring(0,message.length-"\n".length)
+    }
+    message
+  }
+
+  def segOrGroupAsString(m: Message, segOrGroup: SegOrGroup, isFirstSegOrGroup: Boolean,toBeReplaced: Option[Map[String,String]] = None) : String = {
+    if(segOrGroup.isInstanceOf[Group]){
+      var res = ""
+      for(subSegOrGroup <- (segOrGroup.asInstanceOf[Group]).children){
+        res += segOrGroupAsString(m, subSegOrGroup,false)
+      }
+      res
+    } else {
+      val segment = segOrGroup.asInstanceOf[Segment]
+      var res = segment.model.ref.name
+      if(!isFirstSegOrGroup){
+        res+=m.separators.fs
+      }
+      var isFirst = true
+      for (field <- segment.model.ref.fields) {
+        val fieldsInSegment = m.findFieldsInSegment(field.req,segment.children)
+        if(fieldsInSegment.length>0){
+          if(!isFirst) {
+            res += m.separators.fs
+          }
+          var isFirstFieldInSegment = true
+          for(fieldInSegment <- fieldsInSegment){
+            if(!isFirstFieldInSegment){
+              res += m.separators.rs
+            }
+            res += fieldAsString(m, fieldInSegment,toBeReplaced)
+            isFirstFieldInSegment=false
+          }
+          isFirst=false
+        } else {
+          res += m.separators.fs
+        }
+      }
+      while(res.endsWith(""+m.separators.fs)){
+        res = res.substring(0,res.length-1)
+      }
+      res+"\n"
+    }
+  }
+
+  def fieldAsString(m: Message, field: Field,toBeReplaced: Option[Map[String,String]] = None): String ={
+    if(field.isInstanceOf[ComplexField]){
+      val complexField = field.asInstanceOf[ComplexField]
+      var res = ""
+      var isFirst = true
+      for(component <- complexField.datatype.components){
+        var componentInField = m.findSimpleComponentInField(component.req,complexField.children)
+        if(!componentInField.isEmpty){
+          if(!isFirst){
+            res+=m.separators.cs
+          }
+          res += componentAsString(m, componentInField.get,toBeReplaced)
+          isFirst = false
+        } else {
+          res += m.separators.cs
+        }
+      }
+      while(res.endsWith(""+m.separators.cs)){
+        res = res.substring(0,res.length-1)
+      }
+      res
+    } else {
+      val simpleField = field.asInstanceOf[SimpleField]
+      if(!toBeReplaced.isEmpty){
+        val map = toBeReplaced.get
+        for(key <- map.keys){
+          if(m.comparePath(key,simpleField.location.path)){
+            return map.get(key).get
+          }
+        }
+      }
+      simpleField.value.raw
+    }
+  }
+
+  def componentAsString(m: Message, component: Component,toBeReplaced: Option[Map[String,String]] = None):String = {
+    if(component.isInstanceOf[ComplexComponent]){
+      var res = ""
+      val complexComponent = component.asInstanceOf[ComplexComponent]
+      var isFirst=true
+      for(simpleComponent <- complexComponent.children){
+        if(!isFirst){
+          res += m.separators.ss
+        }
+        res += componentAsString(m, simpleComponent)
+        isFirst = false
+      }
+      res
+    } else {
+      val simpleComponent = component.asInstanceOf[SimpleComponent]
+      if(!toBeReplaced.isEmpty){
+        val map = toBeReplaced.get
+        for(key <- map.keys){
+          if(m.comparePath(key,simpleComponent.location.path)){
+            return map.get(key).get
+          }
+        }
+      }
+      simpleComponent.value.raw
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package hl7.v2.parser.impl
+
+import hl7.v2.profile.XMLDeserializer
+import org.specs2.Specification
+
+class ShapeCacheSpec extends Specification { def is = s2"""
+
+  Shape cache specification
+
+    A message parsed with a cached shape should be equal to the parsed one    $s1
+    The hits and misses should be counted per shape                           $s2
+    The unexpected lines should be kept when the shape is reused              $s3
+    The least recently used shape should be evicted                           $s4
+  """
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+  val mm = profile.messages("ORU_R01")
+
+  def parser(capacity: Int) = new DefaultParser {
+    override val shapeCache = Some(ShapeCache(capacity))
+  }
+
+  val plain = new DefaultParser {}
+
+  def s1 = {
+    val p = parser(8)
+    val m1 = LabMessage(3)
+    val m2 = LabMessage(3).replace("|10|", "|12|")
+    p.parse(m1, mm).get
+    (p.parse(m2, mm).get === plain.parse(m2, mm).get) and
+      (p.shapeCache.get.hits === 1)
+  }
+
+  def s2 = {
+    val p = parser(8)
+    List(2, 3, 2, 2, 3, 4) foreach { n => p.parse(LabMessage(n), mm).get }
+    val c = p.shapeCache.get
+    (c.hits === 3) and (c.misses === 3) and (c.size === 3)
+  }
+
+  def s3 = {
+    val p = parser(8)
+    val m = LabMessage(2) + "\rMSH|^~\\&|A\rPID|1"
+    p.parse(m, mm).get
+    val expected = plain.parse(m, mm).get
+    val actual = p.parse(m, mm).get
+    (actual === expected) and (actual.unexpected.size === 2) and (p.shapeCache.get.hits === 1)
+  }
+
+  def s4 = {
+    val p = parser(2)
+    List(2, 3, 2, 4, 2, 3) foreach { n => p.parse(LabMessage(n), mm).get }
+    val c = p.shapeCache.get
+    (c.hits === 2) and (c.misses === 4) and (c.size === 2)
+  }
+}
@@ -100,6 +100,35 @@ case class Group(
 ) extends SegRefOrGroup {
 
   lazy val reqs: List[Req] = structure map ( _.req )
+
+  /**
+    * The names of the segments which can start an instance of the group:
+    * the segments at the top of the group or, if the group starts with
+    * a group, the start segments of every child.
+    */
+  lazy val headNames: Set[String] = structure span ( _.isInstanceOf[SegmentRef] ) match {
+    case (Nil, children) => children.flatMap( startNames ).toSet
+    case (heads, _)      => heads.flatMap( startNames ).toSet
+  }
+
+  /**
+    * Maps the name of a segment to the index of the first child
+    * of the group which can start with this segment
+    */
+  lazy val childIndex: Map[String, Int] =
+    structure.zipWithIndex.foldLeft( Map[String, Int]() ) { case (acc, (child, i)) =>
+      startNames( child ).foldLeft( acc ) { (m, name) =>
+        if ( m contains name ) m else m.updated( name, i )
+      }
+    }
+
+  /**
+    * Returns the names of the segments which can start the element
+    */
+  private def startNames( e: SegRefOrGroup ): Set[String] = e match {
+    case s: SegmentRef => Set( s.ref.name )
+    case g: Group      => g.headNames
+  }
 }
 
 /**
@@ -116,6 +145,17 @@ case class Message (
 
   lazy val asGroup = Group(id, structId, structure,
         Req(1, structId, Usage.R, None, None, None, Nil))
+
+  /**
+    * The names of all the segments of the message structure
+    */
+  lazy val segmentNames: Set[String] = {
+    def names( l: List[SegRefOrGroup] ): List[String] = l flatMap {
+      case s: SegmentRef => List( s.ref.name )
+      case g: Group      => names( g.structure )
+    }
+    names( structure ).toSet
+  }
 }
 
 /**
@@ -0,0 +1,18 @@
+package hl7.v2.validation.plugin;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a validation plugin which holds no state between two assertions.
+ * A single instance of such a plugin is created and shared by every
+ * evaluation, it must therefore be thread-safe. A new instance of the
+ * other plugins is created for each evaluation.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface StatelessPlugin {
+
+}
@@ -1,17 +1,23 @@
 package hl7.v2.validation.report;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigValue;
 
 import expression.AsString;
 import expression.Expression;
 import gov.nist.validation.report.Entry;
 import gov.nist.validation.report.Trace;
-import gov.nist.validation.report.impl.EntryImpl;
 import hl7.v2.instance.Element;
 import hl7.v2.instance.Location;
 import hl7.v2.profile.Range;
@@ -40,140 +46,110 @@ public class ConfigurableDetections {
 	public ConfigurableDetections(Config conf) {
 		super();
 		this.conf = conf;
+		this.failuresOnly = conf.hasPath("report.failures-only")
+				&& conf.getBoolean("report.failures-only");
+		this.ignored = conf.hasPath("report.ignored-classifications")
+				? new HashSet<String>(conf.getStringList("report.ignored-classifications"))
+				: new HashSet<String>();
+		this.detections = compile(conf);
+		this.contextBased = compileContextBased(conf);
+		this.warning = conf.hasPath("report.classification.warning")
+				? conf.getString("report.classification.warning") : null;
+		this.alert = conf.hasPath("report.classification.alert")
+				? conf.getString("report.classification.alert") : null;
+		this.constraintSuccess = isReported("constraint-success");
+		this.contentSuccess = isReported("content-success");
+		this.predicateSuccess = isReported("predicate-success");
+		this.coConstraintSuccess = isReported("coconstraint-success");
 	}
 	
 	public  Entry rusage(Location l) {
-		String category = conf.getString("report.r-usage.category");
-		String classification = conf.getString("report.r-usage.classification");
-		String template = conf.getString("report.r-usage.template");
-		String description = String.format(template, l.prettyString());
-		return entry(l, description, category, classification);
+		Detection d = detection("r-usage");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 
 	public  Entry ousage(Location l, String value) {
-		String category = conf.getString("report.o-usage.category");
-		String classification = conf.getString("report.o-usage.classification");
-		String template = conf.getString("report.o-usage.template");
-		String desc = String.format(template, l.prettyString(), value);
-		return entry(l, desc, category, classification);
+		Detection d = detection("o-usage");
+		return entry(l, () -> d.render(l.prettyString(), value), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the X usage detection
 	 */
 	public  Entry xusage(Location l) {
-		String category = conf.getString("report.x-usage.category");
-		String classification = conf.getString("report.x-usage.classification");
-		String template = conf.getString("report.x-usage.template");
-		String description = String.format(template, l.prettyString());
-		return entry(l, description, category, classification);
+		Detection d = detection("x-usage");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the W usage detection
 	 */
 	public  Entry wusage(Location l) {
-		String category = conf.getString("report.w-usage.category");
-		String classification = conf.getString("report.w-usage.classification");
-		String template = conf.getString("report.w-usage.template");
-		String description = String.format(template, l.prettyString());
-		return entry(l, description, category, classification);
+		Detection d = detection("w-usage");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the RE usage detection
 	 */
 	public  Entry reusage(Location l) {
-		String category = conf.getString("report.re-usage.category");
-		String classification = conf
-				.getString("report.re-usage.classification");
-		String template = conf.getString("report.re-usage.template");
-		String description = String.format(template, l.prettyString());
-		return entry(l, description, category, classification);
+		Detection d = detection("re-usage");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the W usage detection
 	 */
 	public  Entry cardinality(Location l, Range r, int count) {
-		String category = conf.getString("report.cardinality.category");
-		String classification = conf
-				.getString("report.cardinality.classification");
-		String template = conf.getString("report.cardinality.template");
-		String description = String.format(template, l.prettyString(), r.min(),
-				r.max(), count);
-		return entry(l, description, category, classification);
+		Detection d = detection("cardinality");
+		return entry(l, () -> d.render(l.prettyString(), r.min(), r.max(), count), d.category, d.classification);
 	}
 
 	public  Entry ncardinality(Location l, int count) {
-		String category = conf.getString("report.null-cardinality.category");
-		String classification = conf
-				.getString("report.null-cardinality.classification");
-		String template = conf.getString("report.null-cardinality.template");
-		String description = String.format(template, l.prettyString(), count);
-		return entry(l, description, category, classification);
+		Detection d = detection("null-cardinality");
+		return entry(l, () -> d.render(l.prettyString(), count), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the length detection
 	 */
 	public  Entry length(Location l, Range r, String value) {
-		String category = conf.getString("report.length.category");
-		String classification = conf.getString("report.length.classification");
-		String template = conf.getString("report.length.template");
-		String desc = String.format(template, l.prettyString(), r.min(),
-				r.max(), value);
-		return entry(l, desc, category, classification);
+		Detection d = detection("length");
+		return entry(l, () -> d.render(l.prettyString(), r.min(), r.max(), value), d.category, d.classification);
 	}
 	
 	public  Entry lengthSpecErrorNF(Location l) {
-		String category = conf.getString("report.length-spec-error-no-valid.category");
-		String classification = conf.getString("report.length-spec-error-no-valid.classification");
-		String template = conf.getString("report.length-spec-error-no-valid.template");
-		String desc = String.format(template, l.prettyString());
-		return entry(l, desc, category, classification);
+		Detection d = detection("length-spec-error-no-valid");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 	
 	public  Entry lengthSpecErrorXOR(Location l) {
-		String category = conf.getString("report.length-spec-error-xor.category");
-		String classification = conf.getString("report.length-spec-error-xor.classification");
-		String template = conf.getString("report.length-spec-error-xor.template");
-		String desc = String.format(template, l.prettyString());
-		return entry(l, desc, category, classification);
+		Detection d = detection("length-spec-error-xor");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 	
 	/**
 	 * @return A report entry for the format detection
 	 */
 	public  Entry format(Location l, String msg) {
-		String category = conf.getString("report.format.category");
-		String classification = conf.getString("report.format.classification");
-		String template = conf.getString("report.format.template");
-		String desc = String.format(template, msg);
-		return entry(l, desc, category, classification);
+		Detection d = detection("format");
+		return entry(l, () -> d.render(msg), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the extra detection
 	 */
 	public  Entry extra(Location l) {
-		String category = conf.getString("report.extra.category");
-		String classification = conf.getString("report.extra.classification");
-		String template = conf.getString("report.extra.template");
-		String desc = String.format(template, l.prettyString());
-		return entry(l, desc, category, classification);
+		Detection d = detection("extra");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for unescaped separators detection
 	 */
 	public  Entry unescaped(Location l) {
-		String category = conf.getString("report.unescaped.category");
-		String classification = conf
-				.getString("report.unescaped.classification");
-		String template = conf.getString("report.unescaped.template");
-		String desc = String.format(template, l.prettyString());
-		return entry(l, desc, category, classification);
+		Detection d = detection("unescaped");
+		return entry(l, () -> d.render(l.prettyString()), d.category, d.classification);
 	}
 
 	/**
@@ -181,23 +157,16 @@ public class ConfigurableDetections {
 	 */
 	public  Entry unexpected(int line, String content) {
 		String path = content.length() >= 3 ? content.substring(0, 3) : "";
-		String category = conf.getString("report.unexpected.category");
-		String classification = conf
-				.getString("report.unexpected.classification");
-		String template = conf.getString("report.unexpected.template");
-		String desc = String.format(template, content);
-		return entry(line, 1, path, desc, category, classification);
+		Detection d = detection("unexpected");
+		return entry(line, 1, path, () -> d.render(content), d.category, d.classification);
 	}
 
 	/**
 	 * @return A report entry for the invalid content detection
 	 */
 	public  Entry invalid(int line, String content) {
-		String category = conf.getString("report.invalid.category");
-		String classification = conf.getString("report.invalid.classification");
-		String template = conf.getString("report.invalid.template");
-		String desc = String.format(template, content);
-		return entry(line, 1, "", desc, category, classification);
+		Detection d = detection("invalid");
+		return entry(line, 1, "", () -> d.render(content), d.category, d.classification);
 	}
 
 	/*
@@ -232,59 +201,58 @@ public class ConfigurableDetections {
 			Option<Classification> classificationOption,
 			Option<ConstraintStrength> strengthOption,
 			String key){
-		String root = conf.getString(key + ".classification");
+		return constraintClassification(classificationOption, strengthOption,
+				detection(key.startsWith("report.") ? key.substring(7) : key));
+	}
 
-		try {
-			if(classificationOption.isDefined()) {
-				Classification classification = classificationOption.get();
-				if(classification instanceof Classification.W){
-					return conf.getString("report.classification.warning");
-				}
-				else if(classification instanceof Classification.A){
-					return conf.getString("report.classification.alert");
-				}
-				else
-					return root;
-			}
+	private  String constraintClassification(
+			Option<Classification> classificationOption,
+			Option<ConstraintStrength> strengthOption,
+			Detection d){
+		String root = d.classification;
 
-			if(strengthOption.isDefined()) {
-				ConstraintStrength strength = strengthOption.get();
-				if(strength instanceof ConstraintStrength.SHALL){
-					return conf.getString(key + ".strength.shall");
-				}
-				else if(strength instanceof ConstraintStrength.SHOULD){
-					return conf.getString(key + ".strength.should");
-				}
-				else
-					return root;
+		if(classificationOption.isDefined()) {
+			Classification classification = classificationOption.get();
+			if(classification instanceof Classification.W){
+				return orElse(warning, root);
+			}
+			else if(classification instanceof Classification.A){
+				return orElse(alert, root);
 			}
+			else
+				return root;
+		}
 
-			return root;
-		} catch (Exception e) {
-			return root;
+		if(strengthOption.isDefined()) {
+			ConstraintStrength strength = strengthOption.get();
+			if(strength instanceof ConstraintStrength.SHALL){
+				return orElse(d.shall, root);
+			}
+			else if(strength instanceof ConstraintStrength.SHOULD){
+				return orElse(d.should, root);
+			}
+			else
+				return root;
 		}
+
+		return root;
 	}
 	
 	public  Entry cntFailureCustom(Location errLoc, Element context,
 			Constraint c, List<Trace> stack, String config, String val,
 			String expected) {
-		String category = conf.getString("report.content-failure.category");
-		String classification = constraintClassification(c.classification(), c.strength(), "report.content-failure");
-		String template = conf.getString("report.content-failure.template");
+		Detection d = detection("content-failure");
+		String classification = constraintClassification(c.classification(), c.strength(), d);
 		Map<String, Object> metaData = new HashMap<String, Object>();
 		if (c.reference().isDefined())
 			metaData.put("reference", c.reference().get());
 
-		if (conf.hasPath("context-based." + config)) {
-			String description_template = conf.getString("context-based."
-					+ config);
-			String description = String.format(description_template, val,
-					errLoc.prettyString(), expected);
-			String str = String.format(template, c.id(), description);
-			return entry(errLoc, str, category, classification, stack, metaData);
+		Template description_template = contextBased.get(config);
+		if (description_template != null) {
+			return entry(errLoc, () -> d.render(c.id(), description_template.render(val,
+					errLoc.prettyString(), expected)), d.category, classification, stack, metaData);
 		} else {
-			String str = String.format(template, c.id(), c.description());
-			return entry(errLoc, str, category, classification, stack, metaData);
+			return entry(errLoc, () -> d.render(c.id(), c.description()), d.category, classification, stack, metaData);
 		}
 	}
 
@@ -329,40 +297,31 @@ public class ConfigurableDetections {
 	}
 	
 	public  Entry unresolvedField(String v1, String v2, Element e){
-		String category = conf.getString("report.unresolved-field.category");
-		String classification = conf.getString("report.unresolved-field.classification");
-		String template = conf.getString("report.unresolved-field.template");
+		Detection d = detection("unresolved-field");
 		Location l = e.location();
-		String desc = String.format(template, v1, v2,l.prettyString());
-		return entry(e.location(), desc, category, classification, null, null);
+		return entry(e.location(), () -> d.render(v1, v2,l.prettyString()), d.category, d.classification, null, null);
 	}
 
 	public  Entry coConstraintSuccess(Element e, String descr, Expression cond, Expression exp) {
-		String category = conf.getString("report.coconstraint-success.category");
-		String classification = conf.getString("report.coconstraint-success.classification");
-		String template = conf.getString("report.coconstraint-success.template");
-		String desc = String.format(template, AsString.condition(cond, e), AsString.expression(exp, e), "");
-		return entry(e.location(), desc, category, classification);
+		Detection d = detection("coconstraint-success");
+		Location l = e.location();
+		return entry(l, () -> d.render(AsString.condition(cond, l),
+				AsString.expression(exp, l), ""), d.category, d.classification);
 	}
 
 	public  Entry coConstraintFailure(Element e, String descr, Expression cond, Expression exp) {
-		String category = conf.getString("report.coconstraint-failure.category");
-		String classification = conf.getString("report.coconstraint-failure.classification");
-		String template = conf.getString("report.coconstraint-failure.template");
-		String desc = String.format(template, AsString.condition(cond, e), AsString.expression(exp, e), "");
-		return entry(e.location(), desc, category, classification);
+		Detection d = detection("coconstraint-failure");
+		Location l = e.location();
+		return entry(l, () -> d.render(AsString.condition(cond, l),
+				AsString.expression(exp, l), ""), d.category, d.classification);
 	}
 	
 	/**
 	 * @return A report entry for a predicate failure detection
 	 */
 	public  Entry predicateSuccess(Element e, Predicate p) {
-		String category = conf.getString("report.predicate-success.category");
-		String classification = conf
-				.getString("report.predicate-success.classification");
-		String template = conf.getString("report.predicate-success.template");
-		String desc = String.format(template, predicateAsString(p));
-		return entry(e.location(), desc, category, classification);
+		Detection d = detection("predicate-success");
+		return entry(e.location(), () -> d.render(predicateAsString(p)), d.category, d.classification);
 	}
 
 	/**
@@ -370,13 +329,8 @@ public class ConfigurableDetections {
 	 */
 	public  Entry predicateFailure(Location l, String usageErr,
 			String expectedUsage, String predicateDesc) {
-		String category = conf.getString("report.predicate-failure.category");
-		String classification = conf
-				.getString("report.predicate-failure.classification");
-		String template = conf.getString("report.predicate-failure.template");
-		String desc = String.format(template, usageErr, expectedUsage,
-				predicateDesc);
-		return entry(l, desc, category, classification);
+		Detection d = detection("predicate-failure");
+		return entry(l, () -> d.render(usageErr, expectedUsage, predicateDesc), d.category, d.classification);
 	}
 
 	/**
@@ -384,14 +338,8 @@ public class ConfigurableDetections {
 	 */
 	public  Entry predicateSpecErr(Element e, Predicate p,
 			List<Trace> stack) {
-		String category = conf
-				.getString("report.predicate-spec-error.category");
-		String classification = conf
-				.getString("report.predicate-spec-error.classification");
-		String template = conf
-				.getString("report.predicate-spec-error.template");
-		String desc = String.format(template, predicateAsString(p));
-		return entry(e.location(), desc, category, classification, stack, null);
+		Detection d = detection("predicate-spec-error");
+		return entry(e.location(), () -> d.render(predicateAsString(p)), d.category, d.classification, stack, null);
 	}
 	
 	/*
@@ -401,9 +349,8 @@ public class ConfigurableDetections {
 	 */
 	
 	public  Entry HLcontentErr(String message, Element e){
-		String category = conf.getString("report.highlevel-content.category");
-		String classification = conf.getString("report.highlevel-content.classification");
-		return entry(e.location(), message, category, classification, null, null);
+		Detection d = detection("highlevel-content");
+		return entry(e.location(), message, d.category, d.classification, null, null);
 	}
 
 	/*
@@ -521,6 +468,160 @@ public class ConfigurableDetections {
 		return vsEntry("coded-element", msg, l, stack);
 	}
 
+	/*
+	 * ========================================================================
+	 * Compiled detections
+	 * =======================================================================
+	 */
+
+	private static volatile ConfigurableDetections defaults;
+
+	/**
+	 * @return The detections of the default configuration. They are created
+	 *         once and shared as long as the default configuration is the same.
+	 */
+	public static ConfigurableDetections defaults() {
+		Config conf = ConfigFactory.load();
+		ConfigurableDetections d = defaults;
+		if (d == null || d.conf != conf) {
+			d = new ConfigurableDetections(conf);
+			defaults = d;
+		}
+		return d;
+	}
+
+	/**
+	 * The category, classification and template of every detection of
+	 * the configuration indexed by the name of the detection
+	 */
+	private final Map<String, Detection> detections;
+	private final Map<String, Template> contextBased;
+	private final String warning;
+	private final String alert;
+
+	/**
+	 * The category, classification and template of a detection
+	 */
+	private static final class Detection {
+		final String category;
+		final String classification;
+		final String shall;
+		final String should;
+		final Template template;
+		final String path;
+
+		Detection(String path, Config c) {
+			this.path = path;
+			this.category = c.getString("category");
+			this.classification = c.getString("classification");
+			this.shall = c.hasPath("strength.shall") ? c.getString("strength.shall") : null;
+			this.should = c.hasPath("strength.should") ? c.getString("strength.should") : null;
+			this.template = c.hasPath("template") ? new Template(c.getString("template")) : null;
+		}
+
+		String render(Object... args) {
+			if (template == null)
+				throw new ConfigException.Missing(path + ".template");
+			return template.render(args);
+		}
+	}
+
+	/**
+	 * @return The detection with the specified name
+	 * @throws ConfigException if the detection is not configured
+	 */
+	private Detection detection(String name) {
+		Detection d = detections.get(name);
+		return d != null ? d : new Detection("report." + name, conf.getConfig("report." + name));
+	}
+
+	private static Map<String, Detection> compile(Config conf) {
+		Map<String, Detection> table = new HashMap<String, Detection>();
+		if (conf.hasPath("report")) {
+			Config report = conf.getConfig("report");
+			for (Map.Entry<String, ConfigValue> e : report.root().entrySet()) {
+				if (e.getValue() instanceof ConfigObject) {
+					Config c = ((ConfigObject) e.getValue()).toConfig();
+					if (c.hasPath("category") && c.hasPath("classification"))
+						table.put(e.getKey(), new Detection("report." + e.getKey(), c));
+				}
+			}
+		}
+		return Collections.unmodifiableMap(table);
+	}
+
+	private static Map<String, Template> compileContextBased(Config conf) {
+		Map<String, Template> table = new HashMap<String, Template>();
+		if (conf.hasPath("context-based"))
+			for (Map.Entry<String, ConfigValue> e : conf.getConfig("context-based").entrySet())
+				table.put(e.getKey(), new Template(e.getValue().unwrapped().toString()));
+		return Collections.unmodifiableMap(table);
+	}
+
+	private static String orElse(String value, String other) {
+		return value != null ? value : other;
+	}
+
+	/*
+	 * ========================================================================
+	 * Report mode
+	 * =======================================================================
+	 */
+
+	private final boolean failuresOnly;
+	private final Set<String> ignored;
+	private final boolean constraintSuccess;
+	private final boolean contentSuccess;
+	private final boolean predicateSuccess;
+	private final boolean coConstraintSuccess;
+
+	/**
+	 * @return True if only the failures are reported
+	 */
+	public boolean failuresOnly() {
+		return failuresOnly;
+	}
+
+	/**
+	 * @return True if some classifications are left out of the report
+	 */
+	public boolean hasIgnoredClassifications() {
+		return !ignored.isEmpty();
+	}
+
+	/**
+	 * @return True if the classification of the entry is left out of the report
+	 */
+	public boolean isIgnored(Entry e) {
+		return ignored.contains(e.getClassification());
+	}
+
+	/**
+	 * @return True if the constraint success detections should be created
+	 */
+	public boolean csSuccessReported(boolean cnt) {
+		return cnt ? contentSuccess : constraintSuccess;
+	}
+
+	/**
+	 * @return True if the predicate success detections should be created
+	 */
+	public boolean predicateSuccessReported() {
+		return predicateSuccess;
+	}
+
+	/**
+	 * @return True if the co-constraint success detections should be created
+	 */
+	public boolean coConstraintSuccessReported() {
+		return coConstraintSuccess;
+	}
+
+	private boolean isReported(String configKey) {
+		return !failuresOnly
+				&& !ignored.contains(detection(configKey).classification);
+	}
+	
 	/*
 	 * ========================================================================
 	 * Helpers
@@ -531,18 +632,47 @@ public class ConfigurableDetections {
 		if(e instanceof TripletEntry){
 			return ((TripletEntry) e).toAlert();
 		}
-    	String classification = conf.getString("report.classification.alert");
-    	return new EntryImpl(e.getLine(), e.getColumn(), e.getPath(), e.getDescription(), e.getCategory(),
+    	String classification = alert;
+    	if (e instanceof LazyEntry && classification != null)
+    		return ((LazyEntry) e).withClassification(classification);
+    	if (classification == null)
+    		classification = conf.getString("report.classification.alert");
+    	return new LazyEntry(e.getLine(), e.getColumn(), e.getPath(), e.getDescription(), e.getCategory(),
 				classification, e.getStackTrace(), e.getMetaData());
     }
 	
 	private  Entry entry(int line, int column, String path,
 			String description, String category, String classification,
 			List<Trace> stackTrace, Map<String, Object> metaData) {
-		return new EntryImpl(line, column, path, description, category,
+		return new LazyEntry(line, column, path, description, category,
 				classification, stackTrace, metaData);
 	}
 
+	private  Entry entry(int line, int column, String path,
+			Supplier<String> description, String category, String classification,
+			List<Trace> stackTrace, Map<String, Object> metaData) {
+		return new LazyEntry(line, column, path, description, category,
+				classification, stackTrace, metaData);
+	}
+
+	private  Entry entry(int line, int column, String path,
+			Supplier<String> description, String category, String classification) {
+		return entry(line, column, path, description, category, classification,
+				null, null);
+	}
+
+	private  Entry entry(Location l, Supplier<String> description, String category,
+			String classification) {
+		return entry(l.line(), l.column(), l.uidPath(), description, category, classification);
+	}
+
+	private  Entry entry(Location l, Supplier<String> description, String category,
+			String classification, List<Trace> stackTrace,
+			Map<String, Object> metaData) {
+		return entry(l.line(), l.column(), l.uidPath(), description, category, classification,
+				stackTrace, metaData);
+	}
+
 	private  Entry entry(int line, int column, String path,
 			String description, String category, String classification) {
 		return entry(line, column, path, description, category, classification,
@@ -570,26 +700,21 @@ public class ConfigurableDetections {
 
 	private  Entry csEntrySuccess(String configKey, Location errLoc,
 			Element context, Constraint c, List<Trace> stack) {
-		String category = conf.getString("report." + configKey + ".category");
-		String classification = conf.getString("report." + configKey + ".classification");
-		String template = conf.getString("report." + configKey + ".template");
-		String desc = String.format(template, c.id(), c.description());
+		Detection d = detection(configKey);
 		Map<String, Object> metaData = new HashMap<String, Object>();
 		if (c.reference().isDefined())
 			metaData.put("reference", c.reference().get());
-		return entry(errLoc, desc, category, classification, stack, metaData);
+		return entry(errLoc, () -> d.render(c.id(), c.description()), d.category, d.classification, stack, metaData);
 	}
 
 	private  Entry csEntry(String configKey, Location errLoc,
 						   Element context, Constraint c, String message, List<Trace> stack) {
-		String category = conf.getString("report." + configKey + ".category");
-		String classification = constraintClassification(c.classification(), c.strength(), "report." + configKey);
-		String template = conf.getString("report." + configKey + ".template");
-		String desc = String.format(template, c.id(), message);
+		Detection d = detection(configKey);
+		String classification = constraintClassification(c.classification(), c.strength(), d);
 		Map<String, Object> metaData = new HashMap<String, Object>();
 		if (c.reference().isDefined())
 			metaData.put("reference", c.reference().get());
-		return entry(errLoc, desc, category, classification, stack, metaData);
+		return entry(errLoc, () -> d.render(c.id(), message), d.category, classification, stack, metaData);
 	}
 
 	private  Entry csEntry(String configKey, Element context,
@@ -608,21 +733,17 @@ public class ConfigurableDetections {
 
 	private  Entry vsEntry(String configKey, String desc, Location l,
 			ValueSet vs, ValueSetSpec spec, List<Trace> stack) {
-		String category = conf.getString("report." + configKey + ".category");
-		String classification = conf.getString("report." + configKey
-				+ ".classification");
+		Detection d = detection(configKey);
 		Map<String, Object> metaData = new HashMap<String, Object>();
 		metaData.put("valueSet", new ValueSetDetails(vs, spec));
-		return entry(l, desc, category, classification, stack, metaData);
+		return entry(l, desc, d.category, d.classification, stack, metaData);
 	}
 
 	private  Entry vsEntry(String configKey, String desc, Location l,
 			List<Trace> stack) {
-		String category = conf.getString("report." + configKey + ".category");
-		String classification = conf.getString("report." + configKey
-				+ ".classification");
+		Detection d = detection(configKey);
 		Map<String, Object> metaData = new HashMap<String, Object>();
-		return entry(l, desc, category, classification, stack, metaData);
+		return entry(l, desc, d.category, d.classification, stack, metaData);
 	}
 
 	private  String predicateAsString(Predicate p) {
@@ -631,19 +752,16 @@ public class ConfigurableDetections {
 	}
 
 	private  String vsTemplate1(String configKey, String s1) {
-		String template = conf.getString("report." + configKey + ".template");
-		return String.format(template, s1);
+		return detection(configKey).render(s1);
 	}
 
 	private  String vsTemplate3(String configKey, String s1, String s2,
 			String s3) {
-		String template = conf.getString("report." + configKey + ".template");
-		return String.format(template, s1, s2, s3);
+		return detection(configKey).render(s1, s2, s3);
 	}
 
 	private  String vsTemplateOpenVS(String configKey, String s1, String s2, String s3, String s4) {
-		String template = conf.getString("report." + configKey + ".template");
-		return String.format(template, s1, s2, s3, s4);
+		return detection(configKey).render(s1, s2, s3, s4);
 	}
 
 	 class ValueSetDetails {
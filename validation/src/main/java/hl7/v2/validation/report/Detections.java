@@ -7,7 +7,6 @@ import expression.AsString;
 import expression.Expression;
 import gov.nist.validation.report.Entry;
 import gov.nist.validation.report.Trace;
-import gov.nist.validation.report.impl.EntryImpl;
 import hl7.v2.instance.Element;
 import hl7.v2.instance.Location;
 import hl7.v2.profile.Range;
@@ -517,14 +516,14 @@ public class Detections {
 			return ((TripletEntry) e).toAlert();
 		}
     	String classification = conf.getString("report.classification.alert");
-    	return new EntryImpl(e.getLine(), e.getColumn(), e.getPath(), e.getDescription(), e.getCategory(),
+    	return new LazyEntry(e.getLine(), e.getColumn(), e.getPath(), e.getDescription(), e.getCategory(),
 				classification, e.getStackTrace(), e.getMetaData());
     }
 	
 	private static Entry entry(int line, int column, String path,
 			String description, String category, String classification,
 			List<Trace> stackTrace, Map<String, Object> metaData) {
-		return new EntryImpl(line, column, path, description, category,
+		return new LazyEntry(line, column, path, description, category,
 				classification, stackTrace, metaData);
 	}
 
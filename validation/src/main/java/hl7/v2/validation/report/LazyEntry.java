@@ -0,0 +1,214 @@
+package hl7.v2.validation.report;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import gov.nist.validation.report.Entry;
+import gov.nist.validation.report.Trace;
+import gov.nist.validation.report.impl.JsonObjectMapper;
+
+/**
+ * A report entry whose description is rendered when it is first read.
+ *
+ * The entry keeps the function rendering the description, usually a
+ * template and its arguments, and calls it once when the description is
+ * read, the entry is serialized or compared. The entries whose description
+ * is never read are never rendered. The function should only keep strings,
+ * locations and expressions so that the entry does not keep the message
+ * alive. A stack trace can be rendered the same way with {@link #traces}.
+ *
+ * Two lazy entries are equal if they have the same line, column, path,
+ * description, category and classification, as for the default entry
+ * implementation. A lazy entry is never equal to an entry of another
+ * class, the default entry implementation comparing its own fields, so
+ * the detections create all their entries as lazy entries.
+ */
+public final class LazyEntry implements Entry {
+
+	private final int line;
+	private final int column;
+	private final String path;
+	private volatile String description;
+	private final String category;
+	private final String classification;
+	private final List<Trace> stackTrace;
+	private final Map<String, Object> metaData;
+
+	private volatile Supplier<String> renderer;
+
+	public LazyEntry(int line, int column, String path,
+			Supplier<String> description, String category,
+			String classification, List<Trace> stackTrace,
+			Map<String, Object> metaData) {
+		this.line = line;
+		this.column = column;
+		this.path = path;
+		this.renderer = description;
+		this.category = category;
+		this.classification = classification;
+		this.stackTrace = stackTrace;
+		this.metaData = metaData;
+	}
+
+	/**
+	 * Creates an entry whose description is already rendered
+	 */
+	public LazyEntry(int line, int column, String path, String description,
+			String category, String classification, List<Trace> stackTrace,
+			Map<String, Object> metaData) {
+		this(line, column, path, (Supplier<String>) null, category,
+				classification, stackTrace, metaData);
+		this.description = description;
+	}
+
+	/**
+	 * @return A stack trace which is rendered when it is first read
+	 */
+	public static List<Trace> traces(Supplier<List<Trace>> traces) {
+		return new Traces(traces);
+	}
+
+	/**
+	 * @return A copy of this entry with the specified classification
+	 *         which shares the description
+	 */
+	public LazyEntry withClassification(String classification) {
+		return new LazyEntry(line, column, path, this::getDescription,
+				category, classification, stackTrace, metaData);
+	}
+
+	@Override
+	public int getLine() {
+		return line;
+	}
+
+	@Override
+	public int getColumn() {
+		return column;
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public String getDescription() {
+		String d = description;
+		if (d == null) {
+			synchronized (this) {
+				if (description == null) {
+					description = renderer.get();
+					renderer = null;
+				}
+				d = description;
+			}
+		}
+		return d;
+	}
+
+	@Override
+	public String getCategory() {
+		return category;
+	}
+
+	@Override
+	public String getClassification() {
+		return classification;
+	}
+
+	@Override
+	public List<Trace> getStackTrace() {
+		return stackTrace;
+	}
+
+	@Override
+	public Map<String, Object> getMetaData() {
+		return metaData;
+	}
+
+	@Override
+	public String toJson() throws Exception {
+		return JsonObjectMapper.mapper.writeValueAsString(this);
+	}
+
+	@Override
+	public String toText() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("[%s][%d,%d] %s # %s", classification, line,
+				column, category, getDescription()));
+		if (stackTrace != null)
+			for (Trace t : stackTrace)
+				sb.append("\n").append(t.toString());
+		return sb.toString();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof LazyEntry))
+			return false;
+		LazyEntry e = (LazyEntry) o;
+		return column == e.getColumn() && line == e.getLine()
+				&& category.equals(e.getCategory())
+				&& classification.equals(e.getClassification())
+				&& getDescription().equals(e.getDescription())
+				&& path.equals(e.getPath());
+	}
+
+	@Override
+	public int hashCode() {
+		int result = line;
+		result = 31 * result + column;
+		result = 31 * result + path.hashCode();
+		result = 31 * result + getDescription().hashCode();
+		result = 31 * result + category.hashCode();
+		result = 31 * result + classification.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return toText();
+	}
+
+	/**
+	 * A stack trace rendered when it is first read
+	 */
+	private static final class Traces extends AbstractList<Trace> {
+
+		private volatile Supplier<List<Trace>> supplier;
+		private volatile List<Trace> traces;
+
+		Traces(Supplier<List<Trace>> supplier) {
+			this.supplier = supplier;
+		}
+
+		private List<Trace> traces() {
+			List<Trace> t = traces;
+			if (t == null) {
+				synchronized (this) {
+					if (traces == null) {
+						traces = supplier.get();
+						supplier = null;
+					}
+					t = traces;
+				}
+			}
+			return t;
+		}
+
+		@Override
+		public Trace get(int index) {
+			return traces().get(index);
+		}
+
+		@Override
+		public int size() {
+			return traces().size();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package hl7.v2.validation.report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A detection template compiled once.
+ *
+ * A template whose only format specifiers are %s and %% is split in
+ * literal parts which are joined with the arguments when it is rendered.
+ * Any other template is rendered with String.format.
+ */
+final class Template {
+
+	private final String format;
+	private final String[] parts;
+
+	Template(String format) {
+		this.format = format;
+		this.parts = split(format);
+	}
+
+	/**
+	 * @return The template rendered with the arguments
+	 */
+	String render(Object... args) {
+		if (parts == null || args.length < parts.length - 1)
+			return String.format(format, args);
+		StringBuilder sb = new StringBuilder(format.length() + 16 * args.length);
+		sb.append(parts[0]);
+		for (int i = 1; i < parts.length; i++)
+			sb.append(args[i - 1]).append(parts[i]);
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return format;
+	}
+
+	/**
+	 * @return The literal parts of the template or null if the template
+	 *         has a format specifier other than %s and %%
+	 */
+	private static String[] split(String format) {
+		List<String> parts = new ArrayList<String>();
+		StringBuilder part = new StringBuilder();
+		int i = 0;
+		while (i < format.length()) {
+			char c = format.charAt(i);
+			if (c != '%') {
+				part.append(c);
+				i++;
+			} else if (i + 1 < format.length() && format.charAt(i + 1) == '%') {
+				part.append('%');
+				i += 2;
+			} else if (i + 1 < format.length() && format.charAt(i + 1) == 's') {
+				parts.add(part.toString());
+				part.setLength(0);
+				i += 2;
+			} else
+				return null;
+		}
+		parts.add(part.toString());
+		return parts.toArray(new String[0]);
+	}
+}
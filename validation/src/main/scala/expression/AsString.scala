@@ -1,10 +1,13 @@
 package expression
 
-import hl7.v2.instance.Element
+import hl7.v2.instance.{ Element, Location }
 
 object AsString {
 
-  def expression(e: Expression, context: Element): String = e match {
+  def expression(e: Expression, context: Element): String =
+    expression(e, context.location)
+
+  def expression(e: Expression, context: Location): String = e match {
     case e: Presence => presence(e, context)
     case e: PlainText => plainText(e, context)
     case e: Format => format(e, context)
@@ -27,7 +30,10 @@ object AsString {
     case e: StringFormat => stringFormat(e, context)
   }
 
-  def condition(e: Expression, context: Element): String = e match {
+  def condition(e: Expression, context: Element): String =
+    condition(e, context.location)
+
+  def condition(e: Expression, context: Location): String = e match {
     case e: Presence => presenceC(e, context)
     case e: PlainText => plainTextC(e, context)
     case e: Format => formatC(e, context)
@@ -50,127 +56,127 @@ object AsString {
     case e: StringFormat => stringFormatC(e, context)
   }
 
-  private def path(c: Element, p: String) = s"${c.location.path}.$p"
+  private def path(c: Location, p: String) = s"${c.path}.$p"
 
-  private def presence(e: Presence, c: Element) =
+  private def presence(e: Presence, c: Location) =
     s"${path(c, e.path)} SHALL be present"
 
-  private def presenceC(e: Presence, c: Element) =
+  private def presenceC(e: Presence, c: Location) =
     s"${path(c, e.path)} is present"
 
-  private def isNull(e: isNULL, c: Element) =
+  private def isNull(e: isNULL, c: Location) =
     s"${path(c, e.path)} SHALL be NULL"
 
-  private def isNullC(e: isNULL, c: Element) =
+  private def isNullC(e: isNULL, c: Location) =
     s"${path(c, e.path)} is NULL"
 
-  private def plainText(e: PlainText, c: Element) = {
+  private def plainText(e: PlainText, c: Location) = {
     val cs = if (e.ignoreCase) "(case insensitive)" else ""
     val at = if (e.atLeastOnce) "At least one element from " else ""
     s"$at${path(c, e.path)} SHALL be equal to '${e.text}' $cs"
   }
 
-  private def plainTextC(e: PlainText, c: Element) = {
+  private def plainTextC(e: PlainText, c: Location) = {
     val cs = if (e.ignoreCase) "(case insensitive)" else ""
     val at = if (e.atLeastOnce) "At least one element from " else ""
     s"$at${path(c, e.path)} is equal to '${e.text}' $cs"
   }
 
-  private def format(e: Format, c: Element) = {
+  private def format(e: Format, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} SHALL match '${e.pattern}' regular expression"
   }
 
-  private def formatC(e: Format, c: Element) = {
+  private def formatC(e: Format, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} matches '${e.pattern}' regular expression"
   }
 
-  private def numberList(e: NumberList, c: Element) = {
+  private def numberList(e: NumberList, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} SHALL be one of ${e.csv.mkString("{", ", ", "}")}"
   }
 
-  private def numberListC(e: NumberList, c: Element) = {
+  private def numberListC(e: NumberList, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} is one of ${e.csv.mkString("{", ", ", "}")}"
   }
 
-  private def stringList(e: StringList, c: Element) = {
+  private def stringList(e: StringList, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} SHALL be one of ${e.csv.mkString("{", ", ", "}")}"
   }
 
-  private def stringListC(e: StringList, c: Element) = {
+  private def stringListC(e: StringList, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} is one of ${e.csv.mkString("{", ", ", "}")}"
   }
 
-  private def simpleValue(e: SimpleValue, c: Element) =
+  private def simpleValue(e: SimpleValue, c: Location) =
     s"${path(c, e.path)} SHALL be ${e.operator} '${e.value}'"
 
-  private def simpleValueC(e: SimpleValue, c: Element) =
+  private def simpleValueC(e: SimpleValue, c: Location) =
     s"${path(c, e.path)} is ${e.operator} '${e.value}'"
 
-  private def pathValue(e: PathValue, c: Element) =
+  private def pathValue(e: PathValue, c: Location) =
     s"${path(c, e.path1)} SHALL be ${e.operator} ${path(c, e.path2)}"
 
-  private def pathValueC(e: PathValue, c: Element) =
+  private def pathValueC(e: PathValue, c: Location) =
     s"${path(c, e.path1)} is ${e.operator} ${path(c, e.path2)}"
     
-  private def stringFormat(e: StringFormat, c: Element) = {
+  private def stringFormat(e: StringFormat, c: Location) = {
     val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} SHALL match ${e.format} format"
   }
   
-  private def stringFormatC(e: StringFormat, c: Element) = {
+  private def stringFormatC(e: StringFormat, c: Location) = {
      val at = if (e.atLeastOnce) "At least one element from "
     s"$at${path(c, e.path)} matches ${e.format}"
   }
   
-  private def and(e: AND, c: Element) =
+  private def and(e: AND, c: Location) =
     s"${expression(e.exp1, c)} AND ${expression(e.exp2, c)}"
 
-  private def andC(e: AND, c: Element) =
+  private def andC(e: AND, c: Location) =
     s"${condition(e.exp1, c)} AND ${condition(e.exp2, c)}"
 
-  private def or(e: OR, c: Element) =
+  private def or(e: OR, c: Location) =
     s"${expression(e.exp1, c)} OR ${expression(e.exp2, c)}"
-  private def orC(e: OR, c: Element) =
+  private def orC(e: OR, c: Location) =
     s"${condition(e.exp1, c)} OR ${condition(e.exp2, c)}"
 
-  private def not(e: NOT, c: Element) = negate(e.exp, c)
+  private def not(e: NOT, c: Location) = negate(e.exp, c)
 
-  private def notC(e: NOT, c: Element) = negateC(e.exp, c)
+  private def notC(e: NOT, c: Location) = negateC(e.exp, c)
 
-  private def xor(e: XOR, c: Element) =
+  private def xor(e: XOR, c: Location) =
     s"Either ${expression(e.exp1, c)} OR ${expression(e.exp2, c)} BUT NOT BOTH"
-  private def xorC(e: XOR, c: Element) =
+  private def xorC(e: XOR, c: Location) =
     s"Either ${condition(e.exp1, c)} OR ${condition(e.exp2, c)} BUT NOT BOTH"
 
-  private def imply(e: IMPLY, c: Element) =
+  private def imply(e: IMPLY, c: Location) =
     s"If ${expression(e.exp1, c)} Then ${expression(e.exp2, c)}"
-  private def implyC(e: IMPLY, c: Element) =
+  private def implyC(e: IMPLY, c: Location) =
     s"If ${condition(e.exp1, c)} Then ${condition(e.exp2, c)}"
 
-  private def exist(e: EXIST, c: Element) = e.list.map(expression(_, c)).mkString(" OR ")
-  private def existC(e: EXIST, c: Element) = e.list.map(condition(_, c)).mkString(" OR ")
+  private def exist(e: EXIST, c: Location) = e.list.map(expression(_, c)).mkString(" OR ")
+  private def existC(e: EXIST, c: Location) = e.list.map(condition(_, c)).mkString(" OR ")
 
-  private def forall(e: FORALL, c: Element) = e.list.map(expression(_, c)).mkString(" AND ")
-  private def forallC(e: FORALL, c: Element) = e.list.map(condition(_, c)).mkString(" AND ")
+  private def forall(e: FORALL, c: Location) = e.list.map(expression(_, c)).mkString(" AND ")
+  private def forallC(e: FORALL, c: Location) = e.list.map(condition(_, c)).mkString(" AND ")
 
-  private def plugin(e: Plugin, c: Element) = s"$e'"
+  private def plugin(e: Plugin, c: Location) = s"$e'"
 
-  private def setId(e: SetId, c: Element) = s"$e # Context: ${c.location.prettyString}"
+  private def setId(e: SetId, c: Location) = s"$e # Context: ${c.prettyString}"
 
-  private def IZsetId(e: IZSetId, c: Element) = s"$e # Context: ${c.location.prettyString}"
+  private def IZsetId(e: IZSetId, c: Location) = s"$e # Context: ${c.prettyString}"
 
-  private def valueSet(e: ValueSet, c: Element) =
+  private def valueSet(e: ValueSet, c: Location) =
     s"${path(c, e.path)} SHALL be valued from the value set ${
       e.spec.valueSetId
     } (Binding Strength = ${e.spec.bindingStrength.get}, Binding Location = ${e.spec.bindingLocation.get})"
 
-  private def valueSetC(e: ValueSet, c: Element) =
+  private def valueSetC(e: ValueSet, c: Location) =
     s"${path(c, e.path)} is valued from the value set ${
       e.spec.valueSetId
     } (Binding Strength = ${e.spec.bindingStrength.get}, Binding Location = ${e.spec.bindingLocation.get})"
@@ -178,7 +184,7 @@ object AsString {
   // De Morgan's laws
   // not (A and B) === (not A) or (not B)
   // not (A or B) === (not A) and (not B)
-  private def negate(e: Expression, c: Element): String = e match {
+  private def negate(e: Expression, c: Location): String = e match {
     case x: AND => s"${expression(NOT(x.exp1), c)} OR ${expression(NOT(x.exp2), c)}"
     case x: OR => s"${expression(NOT(x.exp1), c)} AND ${expression(NOT(x.exp2), c)}"
     case x: NOT => expression(e, c)
@@ -191,7 +197,7 @@ object AsString {
     case x => expression(x, c).replace("SHALL", "SHALL not")
   }
 
-  private def negateC(e: Expression, c: Element): String = e match {
+  private def negateC(e: Expression, c: Location): String = e match {
     case x: AND => s"${condition(NOT(x.exp1), c)} OR ${condition(NOT(x.exp2), c)}"
     case x: OR => s"${condition(NOT(x.exp1), c)} AND ${condition(NOT(x.exp2), c)}"
     case x: NOT => condition(e, c)
@@ -204,11 +210,11 @@ object AsString {
     case x => condition(x, c).replace("is", "is not")
   }
 
-  private def toNOT(e: Expression, c: Element) = {
+  private def toNOT(e: Expression, c: Location) = {
     expression(NOT(e), c)
   }
 
-  private def toNOTC(e: Expression, c: Element) = {
+  private def toNOTC(e: Expression, c: Location) = {
     condition(NOT(e), c)
   }
 }
\ No newline at end of file
@@ -20,7 +20,7 @@ class ContextBasedEvaluator extends EscapeSeqHandler {
   }
 
   def plainText(p: PlainText, context: Element)(implicit s: Separators): EvalData = {
-    queryAsSimple(context, p.path) match {
+    p.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(ls) =>
         ls filter (x => notEqual(x, p.text, p.ignoreCase)) match {
           case Nil => EvalData(Pass, "", "")
@@ -31,9 +31,9 @@ class ContextBasedEvaluator extends EscapeSeqHandler {
   }
 
   def stringList(sl: StringList, context: Element)(implicit s: Separators): EvalData =
-    queryAsSimple(context, sl.path) match {
+    sl.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(ls) =>
-        ls filter (x => notInList(x.value.raw, sl.csv)) match {
+        ls filter (x => notInList(x.value, sl.csv)) match {
           case Nil => EvalData(Pass, "", "")
           case xs => if (sl.atLeastOnce && (xs.size != ls.size)) EvalData(Pass, "", "") else EvalData(Failures.stringList(sl, xs), xs.head.value.raw, sl.csv.toString())
         }
@@ -41,11 +41,11 @@ class ContextBasedEvaluator extends EscapeSeqHandler {
     }
 
   private def notEqual(s: Simple, text: String, cs: Boolean)(implicit separators: Separators): Boolean =
-    if (cs) !unescape(s.value.raw).equalsIgnoreCase(text)
-    else unescape(s.value.raw) != text
+    if (cs) !s.value.unescaped.equalsIgnoreCase(text)
+    else s.value.unescaped != text
 
-  private def notInList(s: String, list: List[String])(implicit separators: Separators): Boolean =
-    !list.contains(unescape(s))
+  private def notInList(v: Value, list: List[String])(implicit separators: Separators): Boolean =
+    !list.contains(v.unescaped)
   /**
    * Creates an inconclusive result from a message
    */
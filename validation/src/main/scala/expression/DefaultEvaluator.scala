@@ -6,7 +6,6 @@ import hl7.v2.instance._
 import hl7.v2.validation.vs.{ Validator, ValueSetLibrary }
 import gov.nist.validation.report.Entry
 import scala.util.{ Failure, Success, Try }
-import java.lang.reflect.Method
 import scala.jdk.CollectionConverters.ListHasAsScala
 
 trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
@@ -59,7 +58,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def presence(p: Presence, context: Element): EvalResult =
-    query(context, p.path) match {
+    p.compiledPath flatMap { query(context, _) } match {
       case Success(Nil) => Failures.presence(context, p)
       case Success(_)   => Pass
       case Failure(e)   => inconclusive(p, context.location, e)
@@ -72,7 +71,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def plainText(p: PlainText, context: Element)(implicit s: Separators): EvalResult =
-    queryAsSimple(context, p.path) match {
+    p.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(ls) =>
         ls match {
           case Nil => notFound(p, p.path, context, p.notPresentBehavior)
@@ -91,13 +90,16 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def format(f: Format, context: Element)(implicit s: Separators): EvalResult =
-    queryAsSimple(context, f.path) match {
+    f.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(list) =>
         list match {
           case Nil => notFound(f, f.path, context, f.notPresentBehavior)
-          case ls => ls filter (x => notMatch(x, f.pattern)) match {
-            case Nil => Pass
-            case xs  => if (f.atLeastOnce && (xs.size != ls.size)) Pass else Failures.format(f, xs)
+          case ls => Try(f.regex) match {
+            case Success(regex) => ls filter (x => notMatch(x, regex)) match {
+              case Nil => Pass
+              case xs  => if (f.atLeastOnce && (xs.size != ls.size)) Pass else Failures.format(f, xs)
+            }
+            case Failure(e) => inconclusive(f, context.location, e)
           }
         }
       case Failure(e) => inconclusive(f, context.location, e)
@@ -110,11 +112,11 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def stringList(sl: StringList, context: Element)(implicit s: Separators): EvalResult =
-    queryAsSimple(context, sl.path) match {
+    sl.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(list) =>
         list match {
           case Nil => notFound(sl, sl.path, context, sl.notPresentBehavior)
-          case ls => ls filter (x => notInList(x.value.raw, sl.csv)) match {
+          case ls => ls filter (x => notInList(x.value, sl.csv)) match {
             case Nil => Pass
             case xs  => if (sl.atLeastOnce && (xs.size != ls.size)) Pass else Failures.stringList(sl, xs)
           }
@@ -129,7 +131,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def numberList(nl: NumberList, context: Element)(implicit s: Separators): EvalResult =
-    queryAsSimple(context, nl.path) match {
+    nl.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(list) =>
         list match {
           case Nil => notFound(nl, nl.path, context, nl.notPresentBehavior)
@@ -154,7 +156,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def simpleValue(sv: SimpleValue, context: Element)(implicit dtz: Option[TimeZone]): EvalResult =
-    queryAsSimple(context, sv.path) match {
+    sv.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(list) =>
         list match {
           case Nil => notFound(sv, sv.path, context, sv.notPresentBehavior)
@@ -183,7 +185,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The evaluation result
    */
   def pathValue(pv: PathValue, context: Element)(implicit dtz: Option[TimeZone]): EvalResult =
-    (queryAsSimple(context, pv.path1), queryAsSimple(context, pv.path2)) match {
+    (pv.compiledPath1 flatMap { queryAsSimple(context, _) }, pv.compiledPath2 flatMap { queryAsSimple(context, _) }) match {
       case (Success(Nil), Success(Nil))      => notFound(pv, s"[ ${pv.path1}, ${pv.path2} ]", context, pv.notPresentBehavior)
       case (Success(x :: Nil), Success(Nil)) => Failures.pathValue(pv, x, pv.path2)
       case (Success(Nil), Success(x :: Nil)) => Failures.pathValue(pv, x, pv.path1)
@@ -205,7 +207,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * @return The result of the evaluation
    */
   def valueSet(vs: ValueSet, context: Element)(implicit l: ValueSetLibrary, VSValidator : Validator): EvalResult =
-    query(context, vs.path) match {
+    vs.compiledPath flatMap { query(context, _) } match {
       case Failure(e)   => inconclusive(vs, context.location, e)
       case Success(Nil) => notFound(vs, vs.path, context, vs.notPresentBehavior)
       case Success(x :: Nil) =>
@@ -229,7 +231,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
         }
       }
     }
-    query(context, n.path) match {
+    n.compiledPath flatMap { query(context, _) } match {
       case Failure(e)   => inconclusive(n, context.location, e)
       case Success(Nil) => Failures.isNull(context, n)
       case Success(xs)  => loop(xs)
@@ -283,7 +285,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
                                       dtz: Option[TimeZone], VSValidator : Validator): EvalResult =
     eval(not.exp, context) match {
       case Pass            => not.exp match {
-        case Presence(p)   => Failures.not(not, query(context,p).get.head)
+        case p: Presence   => Failures.not(not, query(context, p.compiledPath.get).get.head)
         case _             => Failures.not(not, context)
       }
       case Fail(_) | FailPlugin(_,_)        => Pass
@@ -344,7 +346,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
   }
 
   def setId(e: SetId, context: Element) =
-    queryAsSimple(context, e.path) match {
+    e.compiledPath flatMap { queryAsSimple(context, _) } match {
       case Success(x :: Nil) =>
         if (context.instance.toString == x.value.raw) Pass
         else Failures.seqId(e, context, x)
@@ -355,11 +357,11 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
     }
 
   def IZsetId(e: IZSetId, context: Element) =
-    query(context, e.parent) match {
+    e.compiledParent flatMap { query(context, _) } match {
       case Failure(f)   => inconclusive(e, context.location, f)
       case Success(Nil) => Pass
       case Success(xs) => {
-        parent(xs, e.element) match {
+        e.compiledElement flatMap { parent(xs, _) } match {
           case Failure(f)   => inconclusive(e, context.location, f)
           case Success(Nil) => Pass
           case Success(ys) => {
@@ -394,7 +396,7 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
   def stringFormat(e : StringFormat, context: Element)(implicit s: Separators) = {
     try {
       val validator = StringType.fromString(e.format)
-      queryAsSimple(context, e.path) match {
+      e.compiledPath flatMap { queryAsSimple(context, _) } match {
         case Success(ls) =>
           ls match {
             case Nil => notFound(e, e.path, context, e.notPresentBehavior)
@@ -423,7 +425,10 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
       l.map { x => ((x._1._1.value.raw,x._1._2),x._2) }
   }
   
-  def parent(l: List[Element], path: String): Try[List[List[Simple]]] = {
+  def parent(l: List[Element], path: String): Try[List[List[Simple]]] =
+    Try( CompiledPath(path) ) flatMap { parent(l, _) }
+
+  def parent(l: List[Element], path: CompiledPath): Try[List[List[Simple]]] = {
     l match {
       case Nil => Success(Nil);
       case x => {
@@ -453,29 +458,17 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    */
   def plugin(e: Plugin, context: Element)(implicit s: Separators): EvalResult =
     try {
-      val clazz = Class.forName(e.clazz)
-      
-      var methods = scala.collection.mutable.Map[String, Method]();
-      for(x <- clazz.getDeclaredMethods) {
-        if( x.getName.equals("assertion") ||  x.getName.equals("assertionWithCustomMessages")) 
-          methods += x.getName -> x
-      }
-      
-      if(methods.size == 0) throw new Exception("No method defined for plugin");
-      else if(methods.size > 1) throw new Exception("More than one method defined for plugin");
-      else {
-        if(methods.head._1.equals("assertion")){
-          methods.head._2.invoke(clazz.newInstance(), context).asInstanceOf[Boolean] match {
+      e.resolved.get match {
+        case BooleanPlugin(assertion) =>
+          assertion(context) match {
             case true  => Pass
             case false => Fail(Nil)
           }
-        }
-        else {
-          methods.head._2.invoke(clazz.newInstance(), context).asInstanceOf[java.util.List[String]] match {
+        case ErrorListPlugin(assertion) =>
+          assertion(context) match {
             case null => Pass
-            case str : java.util.List[String] => if(str != null && !str.isEmpty()) FailPlugin(Nil, str.asScala.toList) else Pass
+            case str : java.util.List[String] => if(!str.isEmpty()) FailPlugin(Nil, str.asScala.toList) else Pass
           }
-        }
       }
     } catch { case f: Throwable => inconclusive(e, context.location, f) }
 
@@ -484,21 +477,21 @@ trait DefaultEvaluator extends Evaluator with EscapeSeqHandler {
    * equal to the unescaped 'text' depending on the case
    */
   private def notEqual(s: Simple, text: String, cs: Boolean)(implicit separators: Separators): Boolean =
-    if (cs) !unescape(s.value.raw).equalsIgnoreCase(text)
-    else unescape(s.value.raw) != text
+    if (cs) !s.value.unescaped.equalsIgnoreCase(text)
+    else s.value.unescaped != text
 
   /**
    * Returns true if the unescaped value of 's'
    * don't match the regular expression 'regex'
    */
-  private def notMatch(s: Simple, regex: String)(implicit separators: Separators): Boolean =
-    !regex.r.pattern.matcher(unescape(s.value.raw)).matches
+  private def notMatch(s: Simple, regex: java.util.regex.Pattern)(implicit separators: Separators): Boolean =
+    !regex.matcher(s.value.unescaped).matches
 
   /**
    * Returns true if the list does not contain 's'.
    */
-  private def notInList(s: String, list: List[String])(implicit separators: Separators): Boolean =
-    !list.contains(unescape(s))
+  private def notInList(v: Value, list: List[String])(implicit separators: Separators): Boolean =
+    !list.contains(v.unescaped)
 
   /**
    * Returns true if the list does not contain 'd'
@@ -3,8 +3,7 @@ package expression
 import expression.EvalResult.{Fail, Reason, Trace}
 import hl7.v2.instance._
 import gov.nist.validation.report.Entry
-import hl7.v2.instance.Query._
-import scala.util.{Failure, Success, Try}
+import scala.util.Try
 import expression.EvalResult.Inconclusive
 
 object Failures extends EscapeSeqHandler {
@@ -13,7 +12,7 @@ object Failures extends EscapeSeqHandler {
     * Creates and returns a presence failure stack traces
     */
   def presence(c: Element, e: Presence): Fail = {
-    val nar = narrowLocation(c,e.path)
+    val nar = e.compiledPath map { narrowLocation(c, _) } getOrElse c
     val path    = s"${c.location.path}.${e.path}"
     val reasons = Reason( nar.location, s"$path is missing"):: Nil
     Fail( Trace( e, reasons ) :: Nil )
@@ -44,7 +43,7 @@ object Failures extends EscapeSeqHandler {
   def plainText(e: PlainText, xs: List[Simple])(implicit s: Separators): Fail = {
     val cs = if( e.ignoreCase ) "case insensitive" else "case sensitive"
     val reasons = xs map { x =>
-      Reason(x.location, s"'${unescape(x.value.raw)}' is different from '${e.text}' ($cs)")
+      Reason(x.location, s"'${x.value.unescaped}' is different from '${e.text}' ($cs)")
     }
     Fail( Trace(e, reasons) :: Nil )
   }
@@ -64,7 +63,7 @@ object Failures extends EscapeSeqHandler {
     */
   def stringFromat(e: StringFormat, xs: List[Simple])(implicit s: Separators): Fail = {
     val reasons = xs map { x =>
-      Reason(x.location, s"'${unescape(x.value.raw)}' does not match '${e.toString}'")
+      Reason(x.location, s"'${x.value.unescaped}' does not match '${e.toString}'")
     }
     Fail( Trace(e, reasons) :: Nil )
   }
@@ -74,7 +73,7 @@ object Failures extends EscapeSeqHandler {
     */
   def format(e: Format, xs: List[Simple])(implicit s: Separators): Fail = {
     val reasons = xs map { x =>
-      Reason(x.location, s"'${unescape(x.value.raw)}' doesn't match '${e.pattern}'")
+      Reason(x.location, s"'${x.value.unescaped}' doesn't match '${e.pattern}'")
     }
     Fail( Trace(e, reasons) :: Nil )
   }
@@ -205,14 +204,27 @@ object Failures extends EscapeSeqHandler {
     Fail( Trace(e, reasons) :: Nil )
   }
   
-  def narrowLocation(c : Element, path : String) : Element = {
-    path.split("\\.").foldLeft(c)( (acc,p) =>
-        query(acc,p) match {
-          case Success(Nil) => return acc
-          case Success(ls) => ls.head
-          case Failure(_) => return acc
-        }
-    )
+  def narrowLocation(c : Element, path : String) : Element =
+    Try( CompiledPath(path) ) map { narrowLocation(c, _) } getOrElse c
+
+  /**
+    * Returns the deepest element reached by following the first match
+    * of each step of the path
+    */
+  def narrowLocation(c : Element, path : CompiledPath) : Element = {
+    var acc = c
+    var i = 0
+    while (i < path.length) {
+      acc match {
+        case x: Complex =>
+          val ls = x.childrenAt(path.position(i)) filter { y => path.isWildcard(i) || y.instance == path.instance(i) }
+          if (ls.isEmpty) return acc
+          acc = ls.head
+        case _ => return acc
+      }
+      i += 1
+    }
+    acc
   }
 
 }
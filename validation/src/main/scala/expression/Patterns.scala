@@ -0,0 +1,35 @@
+package expression
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.regex.Pattern
+
+/**
+  * A bounded cache of compiled regular expressions shared
+  * by the expressions built outside of the XML deserializer.
+  */
+object Patterns {
+
+  /**
+    * The maximum number of compiled patterns kept in the cache
+    */
+  val cacheSize = 5000
+
+  private val cache = new ConcurrentHashMap[String, Pattern]()
+
+  /**
+    * Returns the compiled form of the regular expression. Patterns are
+    * cached without locking, the cache is emptied once it holds `cacheSize`
+    * patterns so that a stream of distinct expressions cannot pin it.
+    */
+  @throws[java.util.regex.PatternSyntaxException]("if the regular expression is invalid")
+  def apply(regex: String): Pattern = {
+    val cached = cache.get(regex)
+    if (cached != null) cached
+    else {
+      val p = Pattern.compile(regex)
+      if (cache.size >= cacheSize) cache.clear()
+      val previous = cache.putIfAbsent(regex, p)
+      if (previous == null) p else previous
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package expression
+
+import java.lang.invoke.{ MethodHandle, MethodHandles, MethodType }
+import java.lang.reflect.Modifier
+import java.util.concurrent.ConcurrentHashMap
+import java.util.{ List => JList }
+
+import hl7.v2.instance.Element
+import hl7.v2.validation.plugin.{ BooleanValidationPlugin, ErrorListValidationPlugin, StatelessPlugin }
+
+import scala.util.{ Success, Try }
+
+/**
+  * A resolved plugin
+  */
+sealed trait ResolvedPlugin
+
+/**
+  * A plugin defining the method `boolean assertion(Element)`
+  */
+final case class BooleanPlugin(assertion: Element => Boolean) extends ResolvedPlugin
+
+/**
+  * A plugin defining the method `List<String> assertionWithCustomMessages(Element)`
+  */
+final case class ErrorListPlugin(assertion: Element => JList[String]) extends ResolvedPlugin
+
+/**
+  * Resolves the plugin classes once and caches the result.
+  *
+  * Plugins implementing `BooleanValidationPlugin` or `ErrorListValidationPlugin`
+  * are called through the interface, the others through a method handle. The
+  * instance of plugins annotated with `StatelessPlugin` is created once and
+  * reused. Only the resolved plugins are cached, a plugin which fails to
+  * resolve is resolved again on the next call.
+  */
+object PluginRegistry {
+
+  private val cache = new ConcurrentHashMap[String, ResolvedPlugin]()
+
+  private val lookup = MethodHandles.publicLookup()
+
+  private val handleType =
+    MethodType.methodType(classOf[Object], classOf[Object], classOf[Element])
+
+  /**
+    * Returns the resolved plugin for the specified class name
+    */
+  def resolve(className: String): Try[ResolvedPlugin] =
+    Option(cache.get(className)) match {
+      case Some(p) => Success(p)
+      case None    =>
+        Try( load(className) ) map { p =>
+          val previous = cache.putIfAbsent(className, p)
+          if (previous == null) p else previous
+        }
+    }
+
+  private def load(className: String): ResolvedPlugin = {
+    val clazz = Class.forName(className)
+    val methods = clazz.getDeclaredMethods.filter { x =>
+      x.getName == "assertion" || x.getName == "assertionWithCustomMessages"
+    }
+    methods.map(_.getName).distinct match {
+      case Array() => throw new Exception("No method defined for plugin")
+      case Array(name) =>
+        val instance = instanceFactory(clazz)
+        if (name == "assertion") {
+          if (classOf[BooleanValidationPlugin].isAssignableFrom(clazz))
+            BooleanPlugin(e => instance().asInstanceOf[BooleanValidationPlugin].assertion(e))
+          else {
+            val mh = handle(methods.last)
+            BooleanPlugin(e => invoke(mh, instance(), e).asInstanceOf[Boolean])
+          }
+        } else {
+          if (classOf[ErrorListValidationPlugin].isAssignableFrom(clazz))
+            ErrorListPlugin(e => instance().asInstanceOf[ErrorListValidationPlugin].assertionWithCustomMessages(e))
+          else {
+            val mh = handle(methods.last)
+            ErrorListPlugin(e => invoke(mh, instance(), e).asInstanceOf[JList[String]])
+          }
+        }
+      case _ => throw new Exception("More than one method defined for plugin")
+    }
+  }
+
+  /**
+    * Returns a function creating a new instance of the plugin, or
+    * returning the same instance if the plugin is stateless
+    */
+  private def instanceFactory(clazz: Class[_]): () => AnyRef = {
+    val constructor = lookup.unreflectConstructor(clazz.getDeclaredConstructor())
+      .asType(MethodType.methodType(classOf[Object]))
+    if (clazz.isAnnotationPresent(classOf[StatelessPlugin])) {
+      val instance = (constructor.invokeExact(): Object)
+      () => instance
+    } else () => (constructor.invokeExact(): Object)
+  }
+
+  /**
+    * Returns a handle taking the instance and the element as arguments
+    */
+  private def handle(m: java.lang.reflect.Method): MethodHandle = {
+    val mh = lookup.unreflect(m)
+    val withReceiver =
+      if (Modifier.isStatic(m.getModifiers)) MethodHandles.dropArguments(mh, 0, classOf[Object])
+      else mh
+    withReceiver.asType(handleType)
+  }
+
+  private def invoke(mh: MethodHandle, instance: AnyRef, e: Element): AnyRef =
+    (mh.invokeExact(instance, e): Object)
+}
@@ -24,7 +24,7 @@ object XMLDeserializer extends EscapeSeqHandler {
   /**
     * Creates an expression from a nu.xom.Element representing the expression
     */
-  def expression( e: Element ): Expression = e.getLocalName match {
+  def expression( e: Element ): Expression = compiled( e.getLocalName match {
     case "Presence"    => presence( e )
     case "PathValue"   => pathValue( e )
     case "PlainText"   => plainText( e )
@@ -47,7 +47,7 @@ object XMLDeserializer extends EscapeSeqHandler {
     case "PlainCoConstraint" => plainCo( e )
     case "StringFormat" => stringFormat( e )
     case _ => throw new Error(s"[Error] Unknown expression node $e")
-  } 
+  } )
 
   // Generic Expressions
   private def presence( e: Element ): Presence = Presence( e.attribute("Path") )
@@ -84,7 +84,9 @@ object XMLDeserializer extends EscapeSeqHandler {
     val regex = e.attribute("Regex")
     val atLeastOnce = if (e.attribute("AtLeastOnce") != "") toBoolean(e.attribute("AtLeastOnce")) else false
     val npb = notPresentBehavior(e.attribute("NotPresentBehavior")).getOrElse(PASS)
-    Format( path, regex, atLeastOnce, npb)
+    val f = Format( path, regex, atLeastOnce, npb)
+    f.regex // Compiles the regular expression, fails if it is invalid
+    f
   }
 
   private def numberList( e: Element ): NumberList = {
@@ -131,7 +133,12 @@ object XMLDeserializer extends EscapeSeqHandler {
   
   private def IZsetId( e: Element ) = IZSetId( e.attribute("Parent"), e.attribute("Element"))
 
-  private def plugin(e: Element) = Plugin( e.attribute("QualifiedClassName") )
+  private def plugin(e: Element) = {
+    val clazz = e.attribute("QualifiedClassName")
+    val p = Plugin( clazz )
+    p.resolved.get // Fails if the plugin cannot be resolved
+    p
+  }
 
   private def valueSet(e: Element) = {
     val id   = e.attribute("ValueSetID")
@@ -154,6 +161,19 @@ object XMLDeserializer extends EscapeSeqHandler {
   private def isNull(e : Element) = isNULL( e.attribute("Path") )
   
   // Helpers
+
+  /**
+    * Compiles the paths of the expression, fails if a path is invalid
+    */
+  private def compiled( x: Expression ): Expression = {
+    x match {
+      case p: PathExpression => p.compiledPath.get
+      case p: PathValue      => p.compiledPath1.get; p.compiledPath2.get
+      case p: IZSetId        => p.compiledParent.get; p.compiledElement.get
+      case _ =>
+    }
+    x
+  }
   private def notPresentBehavior(value: String): Option[String] = {
     value match {
       case null => None
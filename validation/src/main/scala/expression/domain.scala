@@ -1,26 +1,54 @@
 package expression
 
-import hl7.v2.instance.Value
+import hl7.v2.instance.{ CompiledPath, Value }
 import hl7.v2.profile.ValueSetSpec
 
+import scala.util.Try
+
 sealed trait Expression
 
-case class Presence( path: String ) extends Expression
+/**
+  * An expression on a single path
+  */
+sealed trait PathExpression extends Expression {
+
+  def path: String
+
+  /**
+    * The compiled path, a failure if the path is invalid
+    */
+  lazy val compiledPath: Try[CompiledPath] = Try( CompiledPath.compile(path) )
+}
+
+case class Presence( path: String ) extends PathExpression
 
-case class PlainText( path: String, text: String, ignoreCase: Boolean, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends Expression
+case class PlainText( path: String, text: String, ignoreCase: Boolean, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends PathExpression
 
-case class Format( path: String, pattern: String, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends Expression
+case class Format( path: String, pattern: String, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends PathExpression {
 
-case class NumberList( path: String, csv: List[Double], atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends Expression
+  /**
+    * The compiled regular expression
+    */
+  lazy val regex: java.util.regex.Pattern = Patterns(pattern)
+}
 
-case class StringList( path: String, csv: List[String], atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends Expression
+case class NumberList( path: String, csv: List[Double], atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends PathExpression
 
-case class SimpleValue( path: String, operator: Operator, value: Value, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS" ) extends Expression
+case class StringList( path: String, csv: List[String], atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends PathExpression
 
-case class PathValue( path1: String, operator: Operator, path2: String, notPresentBehavior : String = "PASS" ) extends Expression
+case class SimpleValue( path: String, operator: Operator, value: Value, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS" ) extends PathExpression
 
+case class PathValue( path1: String, operator: Operator, path2: String, notPresentBehavior : String = "PASS" ) extends Expression {
 
-case class isNULL(path: String) extends Expression
+  /**
+    * The compiled paths, a failure if the path is invalid
+    */
+  lazy val compiledPath1: Try[CompiledPath] = Try( CompiledPath.compile(path1) )
+  lazy val compiledPath2: Try[CompiledPath] = Try( CompiledPath.compile(path2) )
+}
+
+
+case class isNULL(path: String) extends PathExpression
 
 // Combination expressions
 case class AND( exp1: Expression, exp2: Expression ) extends Expression
@@ -39,12 +67,25 @@ case class FORALL( list: Expression* ) extends Expression
 
 case class EXIST( list: Expression* ) extends Expression
 
-case class Plugin( clazz: String ) extends Expression
+case class Plugin( clazz: String ) extends Expression {
+
+  /**
+    * The resolved plugin, a failure if the plugin cannot be resolved
+    */
+  lazy val resolved: Try[ResolvedPlugin] = PluginRegistry.resolve(clazz)
+}
+
+case class SetId(path: String) extends PathExpression
 
-case class SetId(path: String) extends Expression
+case class IZSetId(parent: String, element : String) extends Expression {
 
-case class IZSetId(parent: String, element : String) extends Expression
+  /**
+    * The compiled paths, a failure if the path is invalid
+    */
+  lazy val compiledParent: Try[CompiledPath]  = Try( CompiledPath.compile(parent) )
+  lazy val compiledElement: Try[CompiledPath] = Try( CompiledPath.compile(element) )
+}
 
-case class ValueSet(path: String, spec: ValueSetSpec, notPresentBehavior : String = "PASS") extends Expression
+case class ValueSet(path: String, spec: ValueSetSpec, notPresentBehavior : String = "PASS") extends PathExpression
 
-case class StringFormat(path: String, format: String, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends Expression
+case class StringFormat(path: String, format: String, atLeastOnce : Boolean = false, notPresentBehavior : String = "PASS") extends PathExpression
@@ -0,0 +1,42 @@
+package hl7.v2.validation
+
+import scala.collection.mutable
+import scala.concurrent.duration.Duration
+import scala.concurrent.{ Await, Future }
+import scala.util.Try
+
+/**
+  * Helpers for the batch validation
+  */
+private[validation] object Batch {
+
+  /**
+    * Applies `f` to each element of the input and returns the results
+    * in the input order. At most `maxInFlight` results are pending at
+    * any time, the input is consumed lazily as results are read.
+    *
+    * @param in          - The input
+    * @param maxInFlight - The maximum number of pending results
+    * @param f           - The asynchronous function
+    * @return The results in the input order
+    */
+  def ordered[A, B](in: Iterator[A], maxInFlight: Int)(f: A => Future[B]): Iterator[Try[B]] = {
+    require(maxInFlight > 0, "The maximum number of messages in flight must be greater than zero")
+    new Iterator[Try[B]] {
+
+      private val window = mutable.Queue[Future[B]]()
+
+      private def fill(): Unit =
+        while (window.size < maxInFlight && in.hasNext) window enqueue f(in.next())
+
+      def hasNext: Boolean = { fill(); window.nonEmpty }
+
+      def next(): Try[B] = {
+        if (!hasNext) throw new NoSuchElementException("next on empty iterator")
+        val head = window.dequeue()
+        fill()
+        Await.ready(head, Duration.Inf).value.get
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package hl7.v2.validation
+
+import gov.nist.validation.report.Report
+import hl7.v2.parser.impl.BatchMessage
+import hl7.v2.profile.{ Message => MM }
+import hl7.v2.validation.report.ConfigurableDetections
+
+import scala.concurrent.{ ExecutionContext, Future }
+import scala.util.{ Success, Try }
+
+/**
+ * A validator compiled for a single message model and configuration.
+ *
+ * The message model, the detections and the value set validator are
+ * resolved once when the validator is compiled (see `Validator.compile`).
+ * Instances are immutable and can be shared across threads, every call
+ * to `validate` only parses and checks the message.
+ */
+class CompiledValidator private[validation] (
+  validator: Validator with Execution,
+  val model: MM,
+  val detections: ConfigurableDetections,
+  vsValidator: vs.Validator) {
+
+  /**
+   * Validates the message against the compiled message model
+   * and returns the report.
+   * @param message - The message to be validated
+   * @return The validation report
+   */
+  def validate(message: String): Future[Report] =
+    validator.validate(message, model, detections, vsValidator)
+
+  /**
+   * Validates the messages in parallel and returns the reports in the
+   * input order. At most `maxInFlight` messages are validated at a time.
+   * @param messages    - The messages to be validated
+   * @param maxInFlight - The maximum number of messages in flight
+   * @return The validation reports in the input order
+   */
+  def validateAll(messages: Iterator[String], maxInFlight: Int): Iterator[Try[Report]] =
+    Batch.ordered(messages, maxInFlight) { message =>
+      Future.unit.flatMap(_ => validate(message))(validator.executionContext)
+    }
+
+  def validateAll(messages: Iterator[String]): Iterator[Try[Report]] =
+    validateAll(messages, Validator.defaultMaxInFlight)
+
+  /**
+   * Validates the messages of a batch in parallel and returns each message
+   * with its report in the input order. The line numbers of the reports
+   * are the ones of the batch.
+   * @param messages    - The messages of the batch (see `BatchReader`)
+   * @param maxInFlight - The maximum number of messages in flight
+   * @return The messages and their reports in the input order
+   */
+  def validateBatch(messages: Iterator[BatchMessage], maxInFlight: Int): Iterator[(BatchMessage, Try[Report])] =
+    Batch.ordered(messages, maxInFlight) { m =>
+      implicit val ec: ExecutionContext = validator.executionContext
+      Future.unit.flatMap(_ => validator.validate(m.content, model, detections, vsValidator, m.firstLine))
+        .transform(r => Success(m -> r))
+    } map (_.get)
+}
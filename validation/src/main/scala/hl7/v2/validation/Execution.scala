@@ -0,0 +1,18 @@
+package hl7.v2.validation
+
+import scala.concurrent.ExecutionContext
+
+/**
+  * Trait defining the execution context on which the validation runs
+  *
+  * The member is not implicit so that it does not conflict with an
+  * execution context imported by the classes mixing in the validators.
+  *
+  * The default is the global execution context. Override it, for
+  * instance with a bounded `ValidationExecutor`, to isolate the
+  * validation from the rest of the application.
+  */
+trait Execution {
+
+  def executionContext: ExecutionContext = ExecutionContext.global
+}
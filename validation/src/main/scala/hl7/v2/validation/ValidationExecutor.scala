@@ -0,0 +1,148 @@
+package hl7.v2.validation
+
+import java.util.concurrent.atomic.{ AtomicInteger, AtomicLong }
+import java.util.concurrent._
+
+import scala.concurrent.{ ExecutionContext, ExecutionContextExecutor }
+
+/**
+  * The policy applied when a task is submitted to
+  * a `ValidationExecutor` whose queue is full.
+  */
+sealed trait RejectionPolicy
+
+object RejectionPolicy {
+
+  /**
+    * The submitting thread runs the task itself. This slows down
+    * the producer and is the default backpressure policy.
+    */
+  case object CallerRuns extends RejectionPolicy
+
+  /**
+    * The task is rejected. The corresponding future
+    * fails with a `RejectedExecutionException`.
+    */
+  case object Abort extends RejectionPolicy
+}
+
+/**
+  * A snapshot of the state of a `ValidationExecutor`
+  *
+  * @param parallelism - The number of worker threads
+  * @param queueDepth  - The number of tasks waiting in the queue
+  * @param active      - The number of tasks being executed
+  * @param completed   - The number of tasks completed so far
+  * @param rejected    - The number of submissions which found the queue full
+  */
+case class ExecutorMetrics(
+  parallelism: Int,
+  queueDepth: Int,
+  active: Int,
+  completed: Long,
+  rejected: Long
+)
+
+/**
+  * A bounded execution context dedicated to the validation
+  *
+  * It uses a fixed number of worker threads and a bounded queue. When
+  * the queue is full the rejection policy is applied.
+  *
+  * A validation submits its checks and their continuations to the same
+  * executor from the worker threads, so a full queue never blocks the
+  * submitting thread. The number of messages submitted from outside is
+  * bounded by the `maxInFlight` of the batch validation.
+  *
+  * @param parallelism   - The number of worker threads
+  * @param queueCapacity - The maximum number of queued tasks
+  * @param policy        - The policy applied when the queue is full
+  */
+class ValidationExecutor(
+  val parallelism: Int,
+  val queueCapacity: Int,
+  val policy: RejectionPolicy) extends ExecutionContextExecutor {
+
+  require(parallelism > 0, "The parallelism must be greater than zero")
+  require(queueCapacity > 0, "The queue capacity must be greater than zero")
+
+  private val rejected = new AtomicLong()
+
+  private val queue = new ArrayBlockingQueue[Runnable](queueCapacity)
+
+  private val threadFactory = new ThreadFactory {
+    private val count = new AtomicInteger()
+    def newThread(r: Runnable): Thread = {
+      val t = new Thread(r, s"hl7-validation-${count.incrementAndGet()}")
+      t.setDaemon(true)
+      t
+    }
+  }
+
+  private val handler = new RejectedExecutionHandler {
+    def rejectedExecution(r: Runnable, e: ThreadPoolExecutor): Unit = {
+      rejected.incrementAndGet()
+      if (e.isShutdown)
+        throw new RejectedExecutionException("The validation executor is shut down")
+      policy match {
+        case RejectionPolicy.CallerRuns => r.run()
+        case RejectionPolicy.Abort =>
+          throw new RejectedExecutionException(
+            s"The validation queue is full ($queueCapacity tasks)")
+      }
+    }
+  }
+
+  private val pool = new ThreadPoolExecutor(parallelism, parallelism,
+    0L, TimeUnit.MILLISECONDS, queue, threadFactory, handler)
+
+  def execute(runnable: Runnable): Unit = pool.execute(runnable)
+
+  def reportFailure(cause: Throwable): Unit = ExecutionContext.defaultReporter(cause)
+
+  /**
+    * Returns the number of tasks waiting in the queue
+    */
+  def queueDepth: Int = queue.size
+
+  /**
+    * Returns the approximate number of tasks being executed
+    */
+  def activeCount: Int = pool.getActiveCount
+
+  /**
+    * Returns the approximate number of completed tasks
+    */
+  def completedCount: Long = pool.getCompletedTaskCount
+
+  /**
+    * Returns the number of submissions which found the queue full
+    */
+  def rejectedCount: Long = rejected.get
+
+  /**
+    * Returns a snapshot of the executor metrics
+    */
+  def metrics: ExecutorMetrics =
+    ExecutorMetrics(parallelism, queueDepth, activeCount, completedCount, rejectedCount)
+
+  /**
+    * Stops accepting new tasks. Queued tasks are still executed.
+    */
+  def shutdown(): Unit = pool.shutdown()
+
+  def awaitTermination(timeout: Long, unit: TimeUnit): Boolean =
+    pool.awaitTermination(timeout, unit)
+}
+
+object ValidationExecutor {
+
+  /**
+    * Creates a validation executor using the caller runs policy
+    */
+  def apply(parallelism: Int, queueCapacity: Int): ValidationExecutor =
+    new ValidationExecutor(parallelism, queueCapacity, RejectionPolicy.CallerRuns)
+
+  def apply(parallelism: Int, queueCapacity: Int, policy: RejectionPolicy): ValidationExecutor =
+    new ValidationExecutor(parallelism, queueCapacity, policy)
+}
@@ -1,15 +1,18 @@
 package hl7.v2.validation
 
-import gov.nist.validation.report.Report
+import gov.nist.validation.report.{ Entry, Report }
 import hl7.v2.parser.Parser
-import hl7.v2.profile.Profile
+import hl7.v2.profile.{ Profile, Message => MM }
 
-import scala.concurrent.ExecutionContext.Implicits.global
-import scala.concurrent.Future
-import scala.util.{ Failure, Success }
+import scala.concurrent.{ ExecutionContext, Future }
+import scala.jdk.CollectionConverters._
+import scala.util.{ Failure, Success, Try }
 import hl7.v2.validation.report.ConfigurableDetections
-import com.typesafe.config.ConfigFactory
+import com.typesafe.config.{ Config, ConfigFactory }
+import hl7.v2.parser.impl.{ BatchMessage, BatchReader }
 import java.io.Reader
+import java.util.{ List => JList }
+import java.nio.file.Path
 
 /**
  * Trait defining the message validation
@@ -22,6 +25,19 @@ trait Validator { this: Parser with structure.Validator with content.Validator =
 
   val valueSetLibrary: vs.ValueSetLibrary
 
+  /**
+   * The detections for the default configuration. They are
+   * built once and shared by every validation of this validator.
+   */
+  protected lazy val defaultDetections: ConfigurableDetections =
+    ConfigurableDetections.defaults()
+
+  /**
+   * The value set validator for the default configuration
+   */
+  protected lazy val defaultVSValidator: vs.Validator =
+    new vs.Validator(defaultDetections)
+
   /**
    * Validates the message using the mixed in structure,
    * content and value set validators and returns the report.
@@ -36,37 +52,206 @@ trait Validator { this: Parser with structure.Validator with content.Validator =
         val msg = s"No message with id '$id' is defined in the profile"
         Future failed new Exception(msg)
       case Some(model) =>
-        parse(message, model) match {
-          case Success(m) =>
-            val defaultConfig = ConfigFactory.load();
-            implicit val detections: ConfigurableDetections = if (configuration == null) new ConfigurableDetections(defaultConfig) else new ConfigurableDetections(ConfigFactory.parseReader(configuration).withFallback(defaultConfig).resolve());
-            implicit val vsValidator: vs.Validator = new vs.Validator(detections)
-            val structErrors = checkStructure(m)
-            val contentErrors = checkContent(m)
-            val valueSetErrors = Future { vsValidator.checkValueSet(m, valueSetLibrary) }
-            for {
-              r1 <- structErrors
-              r2 <- contentErrors
-              r3 <- valueSetErrors
-            } yield report.Report(r1, r2, r3)
-          case Failure(e) => Future failed e
+        if (configuration == null)
+          validate(message, model, defaultDetections, defaultVSValidator)
+        else {
+          val detections = this.detections(configuration)
+          validate(message, model, detections, new vs.Validator(detections))
+        }
+    }
+
+  /**
+   * Validates a stream of messages in parallel using the default
+   * configuration. Each message is parsed and checked on the execution
+   * context of this validator, the reports are returned in the input
+   * order and at most `maxInFlight` messages are validated at a time.
+   * @param messages    - The messages and the ids of their models
+   * @param maxInFlight - The maximum number of messages in flight
+   * @return The validation reports in the input order
+   */
+  def validateAll(messages: Iterator[(String, String)], maxInFlight: Int): Iterator[Try[Report]] =
+    Batch.ordered(messages, maxInFlight) { case (message, id) =>
+      Future.unit.flatMap(_ => validate(message, id))(executionContext)
+    }
+
+  def validateAll(messages: Iterator[(String, String)]): Iterator[Try[Report]] =
+    validateAll(messages, Validator.defaultMaxInFlight)
+
+  /**
+   * Compiles a validator for the message with the specified id using
+   * the default configuration.
+   * @param id - The id of the message as defined in the profile
+   * @return A success containing the compiled validator or a failure
+   *         if no message with the specified id is defined in the profile
+   */
+  def compile(id: String): Try[CompiledValidator] = compile(id, null)
+
+  /**
+   * Compiles a validator for the message with the specified id.
+   * The message model, the configuration, the detections and the value
+   * set validator are resolved once and reused by every validation.
+   * @param id            - The id of the message as defined in the profile
+   * @param configuration - The configuration or null to use the default one
+   * @return A success containing the compiled validator or a failure
+   *         if no message with the specified id is defined in the profile
+   */
+  def compile(id: String, configuration: Reader): Try[CompiledValidator] =
+    profile.messages get id match {
+      case None => Failure(new Exception(s"No message with id '$id' is defined in the profile"))
+      case Some(model) => Try {
+        if (configuration == null)
+          new CompiledValidator(this, model, defaultDetections, defaultVSValidator)
+        else {
+          val detections = this.detections(configuration)
+          new CompiledValidator(this, model, detections, new vs.Validator(detections))
         }
+      }
     }
+
+  /**
+   * Validates every message of a batch file or multi-message archive in
+   * parallel using the default configuration. The file is streamed, the
+   * results are passed to `f` in the file order and at most `maxInFlight`
+   * messages are held in memory. The line numbers of the reports are the
+   * ones of the file.
+   * @param file        - The batch file
+   * @param id          - The id of the messages as defined in the profile
+   * @param maxInFlight - The maximum number of messages in flight
+   * @param f           - The function called with each message and its report
+   * @return A success containing the number of messages or a failure if the
+   *         message id is unknown or the file cannot be read
+   */
+  def validateFile(file: Path, id: String, maxInFlight: Int)
+                  (f: (BatchMessage, Try[Report]) => Unit): Try[Int] =
+    compile(id) flatMap { validator =>
+      Try {
+        val reader = BatchReader(file)
+        try {
+          var count = 0
+          validator.validateBatch(reader, maxInFlight) foreach { case (m, r) =>
+            f(m, r)
+            count += 1
+          }
+          count
+        } finally reader.close()
+      }
+    }
+
+  /**
+   * Parses and validates the message against an already resolved
+   * message model, detections and value set validator.
+   */
+  private[validation] def validate(message: String, model: MM,
+    detections: ConfigurableDetections, vsValidator: vs.Validator,
+    firstLine: Int = 1): Future[Report] =
+    parse(message, model, firstLine) match {
+      case Success(m) =>
+        implicit val ec: ExecutionContext = executionContext
+        implicit val d: ConfigurableDetections = detections
+        implicit val v: vs.Validator = vsValidator
+        val structErrors = checkStructure(m)
+        val contentErrors = checkContent(m)
+        val valueSetErrors = Future { vsValidator.checkValueSet(m, valueSetLibrary) }
+        for {
+          r1 <- structErrors
+          r2 <- contentErrors
+          r3 <- valueSetErrors
+        } yield reportOf(r1, r2, r3)
+      case Failure(e) => Future failed e
+    }
+
+  /**
+   * Creates the report leaving out the entries whose
+   * classification is ignored by the detections.
+   */
+  protected def reportOf(structure: Seq[Entry], content: Seq[Entry], vs: JList[Entry])
+                        (implicit detections: ConfigurableDetections): Report =
+    if (detections.hasIgnoredClassifications)
+      report.Report(structure filterNot detections.isIgnored, content filterNot detections.isIgnored,
+        vs.asScala.filterNot(detections.isIgnored).asJava)
+    else report.Report(structure, content, vs)
+
+  /**
+   * Returns the detections of the configuration using the default
+   * configuration as fallback. The detections are cached by the text
+   * of the configuration.
+   */
+  protected def detections(configuration: Reader): ConfigurableDetections =
+    Validator.detections(configuration)
+}
+
+object Validator {
+
+  /**
+   * The default maximum number of messages in flight of a batch validation
+   */
+  val defaultMaxInFlight: Int = 2 * Runtime.getRuntime.availableProcessors
+
+  /**
+   * The maximum number of configurations whose detections are cached
+   */
+  val maxCachedConfigurations: Int = 32
+
+  /**
+   * The detections and the default configuration
+   * they were built with indexed by configuration
+   */
+  private val configurations =
+    new java.util.LinkedHashMap[String, (Config, ConfigurableDetections)](16, 0.75f, true) {
+      override def removeEldestEntry(e: java.util.Map.Entry[String, (Config, ConfigurableDetections)]): Boolean =
+        size > maxCachedConfigurations
+    }
+
+  /**
+   * Returns the detections of the configuration. The configuration is
+   * parsed once, the following calls with the same text and the same
+   * default configuration return the same detections.
+   */
+  private[validation] def detections(configuration: Reader): ConfigurableDetections = {
+    val text = read(configuration)
+    val fallback = ConfigFactory.load()
+    configurations.synchronized { Option(configurations.get(text)) } match {
+      case Some((c, d)) if c eq fallback => d
+      case _ =>
+        val d = new ConfigurableDetections(ConfigFactory.parseString(text)
+          .withFallback(fallback).resolve())
+        configurations.synchronized { configurations.put(text, (fallback, d)) }
+        d
+    }
+  }
+
+  private def read(reader: Reader): String = {
+    val sb = new java.lang.StringBuilder
+    val buffer = new Array[Char](4096)
+    var n = reader.read(buffer)
+    while (n >= 0) {
+      sb.append(buffer, 0, n)
+      n = reader.read(buffer)
+    }
+    sb.toString
+  }
 }
 
 /**
  * An HL7 message validator which uses an empty value set validator
  * and the default implementation of the parser, structure validator,
- * content validator and expression evaluator.
+ * content validator and expression evaluator. The validation
+ * runs on the specified execution context, the global one by default.
  */
 class HL7Validator(
   val profile: Profile,
   val valueSetLibrary: vs.ValueSetLibrary,
-  val conformanceContext: content.ConformanceContext) extends Validator
+  val conformanceContext: content.ConformanceContext,
+  override val executionContext: ExecutionContext) extends Validator
     with hl7.v2.parser.impl.DefaultParser
     with structure.DefaultValidator
     with content.DefaultValidator
-    with expression.DefaultEvaluator
+    with expression.DefaultEvaluator {
+
+  def this(profile: Profile, valueSetLibrary: vs.ValueSetLibrary,
+    conformanceContext: content.ConformanceContext) =
+    this(profile, valueSetLibrary, conformanceContext, ExecutionContext.global)
+}
 
 /**
  * A synchronous HL7 message validator which uses an empty value set
@@ -76,14 +261,20 @@ class HL7Validator(
 class SyncHL7Validator(
   val profile: Profile,
   val valueSetLibrary: vs.ValueSetLibrary,
-  val conformanceContext: content.ConformanceContext) extends Validator
+  val conformanceContext: content.ConformanceContext,
+  override val executionContext: ExecutionContext) extends Validator
     with hl7.v2.parser.impl.DefaultParser
     with structure.DefaultValidator
     with content.DefaultValidator
     with expression.DefaultEvaluator {
 
+  def this(profile: Profile, valueSetLibrary: vs.ValueSetLibrary,
+    conformanceContext: content.ConformanceContext) =
+    this(profile, valueSetLibrary, conformanceContext, ExecutionContext.global)
+
   import scala.concurrent.Await
   import scala.concurrent.duration._
+  import scala.jdk.CollectionConverters._
 
   @throws[Exception]
   def check(message: String, id: String): Report =
@@ -93,5 +284,13 @@ class SyncHL7Validator(
   def checkUsingConfiguration(message: String, id: String, configuration: Reader): Report =
     Await.result(validate(message, id, configuration), 10.second)
 
+  /**
+   * Validates the messages in parallel and returns the reports in the
+   * input order. The iterator throws the validation exception, if any,
+   * when the corresponding report is read.
+   */
+  def checkAll(messages: java.util.Iterator[String], id: String, maxInFlight: Int): java.util.Iterator[Report] =
+    validateAll(messages.asScala map { m => (m, id) }, maxInFlight).map(_.get).asJava
+
 }
 
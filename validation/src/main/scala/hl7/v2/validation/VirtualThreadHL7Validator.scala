@@ -0,0 +1,171 @@
+package hl7.v2.validation
+
+import java.io.Reader
+import java.lang.reflect.InvocationTargetException
+import java.util.concurrent.{ Callable, ExecutorService, Executors, ThreadFactory, TimeUnit, TimeoutException, Future => JFuture }
+import java.util.concurrent.atomic.AtomicInteger
+
+import gov.nist.validation.report.Report
+import hl7.v2.profile.{ Profile, Message => MM }
+import hl7.v2.validation.report.ConfigurableDetections
+
+import scala.concurrent.duration._
+import scala.util.{ Failure, Success }
+
+/**
+ * A synchronous HL7 message validator which runs the checks directly
+ * instead of going through futures on a shared pool.
+ *
+ * '''Runtime requirement:''' the checks only run on virtual threads on
+ * Java 21 or later, or on Java 19 and 20 with the preview enabled. On
+ * Java 17 and on any other runtime without virtual threads, the forked
+ * checks run on a fixed pool of `2 * availableProcessors` platform daemon
+ * threads shared by all the instances (see `VirtualThreadHL7Validator.executor`).
+ * `VirtualThreadHL7Validator.usesVirtualThreads` tells which one is used.
+ *
+ * The message is parsed on the calling thread. When `fork` is true, the
+ * structure, content and value set checks are forked on the executor and
+ * the calling thread waits for them, otherwise the three checks run
+ * sequentially on the calling thread.
+ *
+ * '''The deadline is best effort.''' It only fails the call with a
+ * `TimeoutException`, it never stops a check:
+ *  - when `fork` is true, the call fails as soon as the deadline elapses,
+ *    the forked checks are cancelled but a check which is already running
+ *    is not interruptible and runs to completion in the background;
+ *  - when `fork` is false, the deadline is only checked after the parsing
+ *    and after each check, so the call can exceed it by the duration of
+ *    the longest check.
+ *
+ * @param deadline - The time allowed to validate a message, best effort
+ * @param fork     - Whether the checks are forked or run sequentially
+ */
+class VirtualThreadHL7Validator(
+  val profile: Profile,
+  val valueSetLibrary: vs.ValueSetLibrary,
+  val conformanceContext: content.ConformanceContext,
+  val deadline: FiniteDuration,
+  val fork: Boolean) extends Validator
+    with hl7.v2.parser.impl.DefaultParser
+    with structure.DefaultValidator
+    with content.DefaultValidator
+    with expression.DefaultEvaluator {
+
+  def this(profile: Profile, valueSetLibrary: vs.ValueSetLibrary,
+    conformanceContext: content.ConformanceContext) =
+    this(profile, valueSetLibrary, conformanceContext, 10.seconds, true)
+
+  /**
+   * Validates the message within the deadline of the validator
+   * (best effort, see the class documentation)
+   */
+  @throws[Exception]
+  def check(message: String, id: String): Report =
+    check(message, id, deadline)
+
+  /**
+   * Validates the message within the specified deadline. The deadline is
+   * best effort: on the sequential path it is only checked between two
+   * checks (see the class documentation).
+   */
+  @throws[TimeoutException]("if the deadline elapsed")
+  @throws[Exception]
+  def check(message: String, id: String, deadline: FiniteDuration): Report =
+    check(message, model(id), defaultDetections, defaultVSValidator, deadline)
+
+  @throws[Exception]
+  def checkUsingConfiguration(message: String, id: String, configuration: Reader): Report = {
+    val mm = model(id)
+    val detections = this.detections(configuration)
+    check(message, mm, detections, new vs.Validator(detections), deadline)
+  }
+
+  private def model(id: String): MM =
+    profile.messages.getOrElse(id,
+      throw new Exception(s"No message with id '$id' is defined in the profile"))
+
+  private def check(message: String, model: MM, detections: ConfigurableDetections,
+    vsValidator: vs.Validator, deadline: FiniteDuration): Report = {
+    val limit = System.nanoTime() + deadline.toNanos
+    val m = parse(message, model) match {
+      case Success(x) => x
+      case Failure(e) => throw e
+    }
+    implicit val d: ConfigurableDetections = detections
+    implicit val v: vs.Validator = vsValidator
+    if (fork) {
+      val executor = VirtualThreadHL7Validator.executor
+      val structure = executor.submit(task { checkStructureSync(m) })
+      val content   = executor.submit(task { checkContentSync(m) })
+      val valueSet  = executor.submit(task { vsValidator.checkValueSet(m, valueSetLibrary) })
+      try {
+        val r1 = await(structure, limit, deadline)
+        val r2 = await(content, limit, deadline)
+        val r3 = await(valueSet, limit, deadline)
+        reportOf(r1, r2, r3)
+      } finally {
+        structure.cancel(true)
+        content.cancel(true)
+        valueSet.cancel(true)
+      }
+    } else {
+      def checkpoint(): Unit = if (System.nanoTime() > limit) timeout(deadline)
+      checkpoint()
+      val r1 = checkStructureSync(m)
+      checkpoint()
+      val r2 = checkContentSync(m)
+      checkpoint()
+      val r3 = vsValidator.checkValueSet(m, valueSetLibrary)
+      checkpoint()
+      reportOf(r1, r2, r3)
+    }
+  }
+
+  private def task[T](body: => T): Callable[T] = () => body
+
+  private def await[T](f: JFuture[T], limit: Long, deadline: FiniteDuration): T = {
+    val remaining = limit - System.nanoTime()
+    try f.get(math.max(remaining, 0L), TimeUnit.NANOSECONDS)
+    catch {
+      case _: TimeoutException => timeout(deadline)
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  private def timeout(deadline: FiniteDuration): Nothing =
+    throw new TimeoutException(s"The validation did not complete within $deadline")
+}
+
+object VirtualThreadHL7Validator {
+
+  /**
+   * The executor on which the checks are forked. It starts a virtual
+   * thread per task when the runtime supports it. Otherwise, on Java 17
+   * or when the preview is disabled on Java 19 and 20, it is a fixed pool
+   * of `2 * availableProcessors` daemon threads.
+   */
+  lazy val executor: ExecutorService =
+    try {
+      classOf[Executors].getMethod("newVirtualThreadPerTaskExecutor")
+        .invoke(null).asInstanceOf[ExecutorService]
+    } catch {
+      case _: NoSuchMethodException | _: UnsupportedOperationException => fallback
+      case e: InvocationTargetException if e.getCause.isInstanceOf[UnsupportedOperationException] => fallback
+    }
+
+  private def fallback: ExecutorService =
+    Executors.newFixedThreadPool(2 * Runtime.getRuntime.availableProcessors, new ThreadFactory {
+      private val count = new AtomicInteger()
+      def newThread(r: Runnable): Thread = {
+        val t = new Thread(r, s"hl7-validation-fork-${count.incrementAndGet()}")
+        t.setDaemon(true)
+        t
+      }
+    })
+
+  /**
+   * Returns true if the checks are forked on virtual threads
+   */
+  def usesVirtualThreads: Boolean =
+    !executor.isInstanceOf[java.util.concurrent.ThreadPoolExecutor]
+}
@@ -0,0 +1,180 @@
+package hl7.v2.validation.content
+
+import java.util.IdentityHashMap
+
+import hl7.v2.instance._
+import hl7.v2.profile.{ Composite, Datatype, Profile, SegRefOrGroup, Group => GM, Segment => SM, SegmentRef => SRM }
+
+/**
+ * A conformance context compiled against the model nodes
+ *
+ * The constraints, predicates and co-constraints defined by name and by
+ * ID for a datatype, segment, group or message are merged and deduplicated
+ * once, and whether a subtree can be pruned is computed once. They are then
+ * read by identity of the model of the element, without building any list.
+ *
+ * The nodes of the profile, if any, are compiled when the context is
+ * created. Any other node is compiled with its descendants the first time
+ * one of its elements is looked up. The compiled tables are replaced, never
+ * modified, so the lookups do not lock.
+ *
+ * @param context - The default conformance context
+ * @param profile - The profile compiled upfront or null
+ */
+class CompiledConformanceContext(
+    val context: DefaultConformanceContext,
+    val profile: Profile) extends ConformanceContext {
+
+  import CompiledConformanceContext.{ Specs, Tables }
+
+  /**
+   * Creates a context whose nodes are all compiled on demand
+   */
+  def this(context: DefaultConformanceContext) = this(context, null)
+
+  private val hasDatatypeSpecs =
+    hasDatatypes(context.constraints) || hasDatatypes(context.predicates) || hasDatatypes(context.coConstraints)
+
+  @volatile private var tables = new Tables(new IdentityHashMap, new IdentityHashMap)
+
+  if (profile != null) compile { t =>
+    profile.datatypes.values foreach { datatype(t, _) }
+    profile.segments.values foreach { segment(t, _) }
+    profile.messages.values foreach { m =>
+      register(t, m.asGroup)
+      m.structure foreach { segOrGroup(t, _) }
+    }
+  }
+
+  def constraintsFor(e: Element): List[Constraint] = specs(model(e)).constraints
+
+  def predicatesFor(e: Element): List[Predicate] = specs(model(e)).predicates
+
+  def coConstraintsFor(e: Element): List[CoConstraint] = specs(model(e)).coConstraints
+
+  /**
+   * Returns false if no constraint, predicate or co-constraint can apply
+   * to the element or to one of its descendants, in which case the whole
+   * subtree can be skipped.
+   */
+  def isRelevant(e: Element): Boolean = {
+    val node = model(e)
+    tables.relevant.get(node) match {
+      case null => compileNode(node); tables.relevant.get(node)
+      case r    => r
+    }
+  }
+
+  def orderIndifferentConstraints(): List[Context] = context.orderIndifferentConstraints()
+
+  def coConstraintsF(): VMap[CoConstraint] = context.coConstraintsF()
+
+  /**
+   * Returns the model node whose specifications apply to the element
+   */
+  private def model(e: Element): AnyRef = e match {
+    case c: Component => c.datatype
+    case f: Field     => f.datatype
+    case s: Segment   => s.model.ref
+    case g: Group     => g.model
+  }
+
+  private def specs(node: AnyRef): Specs = tables.specs.get(node) match {
+    case null => compileNode(node); tables.specs.get(node)
+    case s    => s
+  }
+
+  /**
+   * Compiles the node and its descendants
+   */
+  private def compileNode(node: AnyRef): Unit = synchronized {
+    if (!tables.specs.containsKey(node)) compile { t =>
+      node match {
+        case d: Datatype => datatype(t, d)
+        case s: SM       => segment(t, s)
+        case g: GM       => segOrGroup(t, g)
+      }
+    }
+  }
+
+  /**
+   * Registers the nodes in a copy of the tables, computes
+   * their relevance and publishes the copy
+   */
+  private def compile(f: Tables => Unit): Unit = synchronized {
+    val t = new Tables(new IdentityHashMap(tables.specs), new IdentityHashMap(tables.relevant))
+    f(t)
+    t.specs.keySet forEach { n => isRelevantNode(t, n) }
+    tables = t
+  }
+
+  private def isRelevantNode(t: Tables, node: AnyRef): Boolean = t.relevant.get(node) match {
+    case null =>
+      val r = t.specs.get(node) match {
+        case null => true
+        case x    => x.nonEmpty || (node match {
+          case c: Composite => c.components exists { y => isRelevantNode(t, y.datatype) }
+          case s: SM => (s.fields exists { f => isRelevantNode(t, f.datatype) }) ||
+            (s.mappings.nonEmpty && hasDatatypeSpecs)
+          case g: GM => g.structure exists {
+            case y: SRM => isRelevantNode(t, y.ref)
+            case y: GM  => isRelevantNode(t, y)
+          }
+          case _ => false
+        })
+      }
+      t.relevant.put(node, r)
+      r
+    case r => r
+  }
+
+  private def hasDatatypes[T](map: VMap[T]): Boolean =
+    map.datatypeByName.nonEmpty || map.datatypeByID.nonEmpty
+
+  private def register(t: Tables, node: AnyRef): Boolean =
+    !t.specs.containsKey(node) && {
+      t.specs.put(node, Specs(
+        context.specs(node, context.constraints).distinct,
+        context.specs(node, context.predicates).distinct,
+        context.specs(node, context.coConstraints).distinct))
+      true
+    }
+
+  private def segOrGroup(t: Tables, e: SegRefOrGroup): Unit = e match {
+    case s: SRM => segment(t, s.ref)
+    case g: GM  => if (register(t, g)) g.structure foreach { segOrGroup(t, _) }
+  }
+
+  private def segment(t: Tables, s: SM): Unit =
+    if (register(t, s)) {
+      s.fields foreach { f => datatype(t, f.datatype) }
+      s.mappings foreach { m => m.map.values foreach { datatype(t, _) } }
+    }
+
+  private def datatype(t: Tables, d: Datatype): Unit =
+    if (register(t, d)) d match {
+      case c: Composite => c.components foreach { x => datatype(t, x.datatype) }
+      case _ =>
+    }
+}
+
+object CompiledConformanceContext {
+
+  /**
+   * The specifications of a model node
+   */
+  private case class Specs(
+    constraints: List[Constraint],
+    predicates: List[Predicate],
+    coConstraints: List[CoConstraint]) {
+
+    def nonEmpty: Boolean = constraints.nonEmpty || predicates.nonEmpty || coConstraints.nonEmpty
+  }
+
+  /**
+   * The specifications and the relevance of the compiled model nodes
+   */
+  private class Tables(
+    val specs: IdentityHashMap[AnyRef, Specs],
+    val relevant: IdentityHashMap[AnyRef, java.lang.Boolean])
+}
@@ -1,10 +1,13 @@
 package hl7.v2.validation.content
 
 import expression.Expression
+import hl7.v2.instance.CompiledPath
 
 import scala.beans.BeanProperty
 import com.typesafe.config.ConfigFactory
 
+import scala.util.Try
+
 case class Reference(
     @BeanProperty chapter: String,
     @BeanProperty section: String,
@@ -60,7 +63,19 @@ case class Predicate(
     reference: Option[Reference],
     description: String,
     condition: Expression
-)
+) {
+
+  /**
+    * The compiled path of the direct parent of the target, if any, and the
+    * compiled last step of the target, a failure if the target is invalid
+    */
+  lazy val compiledTarget: Try[(Option[CompiledPath], CompiledPath)] = Try {
+    target.lastIndexOf('.') match {
+      case -1 => (None, CompiledPath.compile(target))
+      case i  => (Some(CompiledPath.compile(target.take(i))), CompiledPath.compile(target.drop(i + 1)))
+    }
+  }
+}
 
 sealed trait Classification
 object Classification {
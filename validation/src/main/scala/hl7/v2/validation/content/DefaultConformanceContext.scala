@@ -5,7 +5,7 @@ import java.util.{ List => JList }
 
 import expression.Expression
 import hl7.v2.instance._
-import hl7.v2.profile.{ Group => GM, Segment => SM, Datatype }
+import hl7.v2.profile.{ Group => GM, Segment => SM, Datatype, Profile }
 import nist.xml.util.{ XOMDocumentBuilder, ClassPathResourceResolver }
 import scala.jdk.CollectionConverters.ListHasAsScala
 import scala.util.{ Success, Failure, Try }
@@ -92,6 +92,27 @@ class DefaultConformanceContext(
 
   def orderIndifferentConstraints(): List[Context] = orderIndifferent
 
+  /**
+   * Returns a conformance context whose lookups are compiled against the
+   * model nodes of the profile (see `CompiledConformanceContext`)
+   */
+  def compile(profile: Profile): CompiledConformanceContext = new CompiledConformanceContext(this, profile)
+
+  /**
+   * Returns a conformance context whose lookups are compiled on
+   * demand against the model nodes of the validated elements
+   */
+  def compile(): CompiledConformanceContext = new CompiledConformanceContext(this)
+
+  /**
+   * Returns the specifications defined for a datatype, a segment or a group
+   */
+  private[content] def specs[T](node: AnyRef, map: VMap[T]): List[T] = node match {
+    case d: Datatype => datatypeSpecs(d, map)
+    case s: SM => segmentSpecs(s, map)
+    case g: GM => groupSpecs(g, map)
+  }
+
   private def datatypeSpecs[T](d: Datatype, map: VMap[T]): List[T] =
     map.datatypeByName.getOrElse(d.name, Nil) :::
       map.datatypeByID.getOrElse(d.id, Nil)
@@ -173,7 +194,9 @@ object DefaultConformanceContext {
   private def context(e: nu.xom.Element): Context = {
     val path = e.attribute("List")
     val patterns = (e.getChildElements map pattern).toList
-    Context(path, patterns)
+    val c = Context(path, patterns)
+    c.compiledContextPath
+    c
   }
 
   private def trigger(e: nu.xom.Element): Trigger = {
@@ -268,7 +291,9 @@ object DefaultConformanceContext {
     val fusage = usage(e.attribute("FalseUsage"))
     val ref = reference(e.getFirstChildElement("Reference"))
     val desc = e.getFirstChildElement("Description").getValue
-    Predicate(target, tusage, fusage, ref, desc, condition(e))
+    val p = Predicate(target, tusage, fusage, ref, desc, condition(e))
+    p.compiledTarget
+    p
   }
 
   private def description(e: nu.xom.Element): String =
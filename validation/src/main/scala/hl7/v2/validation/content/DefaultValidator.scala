@@ -9,21 +9,38 @@ import hl7.v2.instance._
 import hl7.v2.validation.content.PredicateUsage.{ R, X }
 import hl7.v2.profile.{ Message => MM }
 import scala.jdk.CollectionConverters.SeqHasAsJava
-import scala.concurrent.ExecutionContext.Implicits.global
 import scala.concurrent.Future
 import expression._
-import hl7.v2.validation.report.ConfigurableDetections
+import hl7.v2.validation.report.{ ConfigurableDetections, LazyEntry }
 import expression.EvalResult.FailPlugin
 
 trait DefaultValidator extends Validator with expression.Evaluator with PatternFinder {
 
+  /**
+   * The conformance context used for the lookups. A default conformance
+   * context is compiled on demand against the models of the messages.
+   */
+  private lazy val lookups: ConformanceContext = conformanceContext match {
+    case c: DefaultConformanceContext => c.compile()
+    case c => c
+  }
+
   /**
    * Check the message against the constraints defined
    * in the constraint manager and returns the report.
    * @param m - The message to be checked
    * @return The report
    */
-  def checkContent(m: Message)(implicit Detections : ConfigurableDetections, VSValidator : vs.Validator): Future[Seq[Entry]] = Future {
+  def checkContent(m: Message)(implicit Detections : ConfigurableDetections, VSValidator : vs.Validator): Future[Seq[Entry]] =
+    Future { checkContentSync(m) }(executionContext)
+
+  /**
+   * Check the message against the constraints defined in the
+   * constraint manager on the calling thread and returns the report.
+   * @param m - The message to be checked
+   * @return The report
+   */
+  def checkContentSync(m: Message)(implicit Detections : ConfigurableDetections, VSValidator : vs.Validator): Seq[Entry] = {
     implicit val separators = m.separators
     implicit val dtz = m.defaultTimeZone
     implicit val model = m.model
@@ -37,10 +54,23 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
    * @return The report
    */
   private def check(e: Element)(implicit s: Separators,
+    dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections, VSValidator : vs.Validator): List[Entry] =
+    if (isRelevant(e)) checkRelevant(e) else Nil
+
+  /**
+   * Returns false if the compiled conformance context has no specification
+   * for the element and its descendants
+   */
+  private def isRelevant(e: Element): Boolean = lookups match {
+    case c: CompiledConformanceContext => c.isRelevant(e)
+    case _ => true
+  }
+
+  private def checkRelevant(e: Element)(implicit s: Separators,
     dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections, VSValidator : vs.Validator): List[Entry] = {
-    val cl : List[Constraint] = conformanceContext.constraintsFor(e)
-    val pl : List[Predicate] = conformanceContext.predicatesFor(e)
-    val ccl: List[CoConstraint] = conformanceContext.coConstraintsFor(e)
+    val cl : List[Constraint] = lookups.constraintsFor(e)
+    val pl : List[Predicate] = lookups.predicatesFor(e)
+    val ccl: List[CoConstraint] = lookups.coConstraintsFor(e)
 
     val r = pl.foldLeft((cl map { routeConstraint(e, _) }).flatten) { (acc, p) =>
       check(e, p) ::: acc
@@ -89,7 +119,7 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
     dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections, VSValidator : vs.Validator): List[Entry] = {
     if (isCB(c)) {
       if (mustRoute(c.assertion))
-        List(checkCB(e, c, c.reference.get))
+        checkCB(e, c, c.reference.get)
       else
         check(e, c, true)
     } else
@@ -99,7 +129,7 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
   private def check(e: Element, c: Constraint, content: Boolean)(implicit s: Separators,
     dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections, VSValidator : vs.Validator): List[Entry] =
     eval(c.assertion, e) match {
-      case Pass => List(Detections.csSuccess(e, c,content))
+      case Pass => if (Detections.csSuccessReported(content)) List(Detections.csSuccess(e, c,content)) else Nil
       case Fail(stack) => 
         val errLoc = approximativeErrorLocation(e, stack)
           List(Detections.csFailure(errLoc, e, c, c.description, stackTrace(e, stack),content))
@@ -129,7 +159,7 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
     dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections, VSValidator : vs.Validator): List[Entry] = 
     a.foldLeft(List[Entry]()){
        (acc, x) => eval(x, e) match {
-         case Pass => Detections.coConstraintSuccess(e, str, k, x) :: acc
+         case Pass => if (Detections.coConstraintSuccessReported) Detections.coConstraintSuccess(e, str, k, x) :: acc else acc
          case Fail(_) | FailPlugin(_,_) => Detections.coConstraintFailure(e, str, k, x) :: acc
          case Inconclusive(trace) => Detections.coConstraintFailure(e, str, k, x) :: acc
        }
@@ -137,21 +167,21 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
    
 
   private def checkCB(e: Element, c: Constraint, ref: Reference)(implicit s: Separators,
-    dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections): Entry = {
+    dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections): List[Entry] = {
 
     //-- Custom Evaluation for context-based constraints
     val evaluator = new ContextBasedEvaluator
 
     evaluator.eval(c.assertion, e) match {
       case EvalData(a, found, expected) => a match {
-        case Pass => Detections.cntSuccess(e, c)
+        case Pass => if (Detections.csSuccessReported(true)) List(Detections.cntSuccess(e, c)) else Nil
         case Fail(stack) =>
           val errLoc = approximativeErrorLocation(e, stack)
-          Detections.cntFailureCustom(errLoc, e, c, stackTrace(e, stack), format(ref.testDataCategorization), found, expected)
+          List(Detections.cntFailureCustom(errLoc, e, c, stackTrace(e, stack), format(ref.testDataCategorization), found, expected))
         case FailPlugin(stack,_) =>
           val errLoc = approximativeErrorLocation(e, stack)
-          Detections.cntFailureCustom(errLoc, e, c, stackTrace(e, stack), format(ref.testDataCategorization), found, expected)
-        case Inconclusive(trace) => Detections.csSpecError(e, c, c.description, stackTrace(e, trace :: Nil))
+          List(Detections.cntFailureCustom(errLoc, e, c, stackTrace(e, stack), format(ref.testDataCategorization), found, expected))
+        case Inconclusive(trace) => List(Detections.csSpecError(e, c, c.description, stackTrace(e, trace :: Nil)))
       }
     }
 
@@ -178,12 +208,13 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
    */
   private def checkUsage(e: Element, p: Predicate, u: PredicateUsage)(implicit Detections : ConfigurableDetections): List[Entry] =
     try {
-      val (ccontexts, path) = reducePath(e, p.target)
+      val (ccontexts, compiled) = reducePath(e, p)
+      val path = compiled.path
       val contexts = cleanFromNull(ccontexts)
       if (contexts.isEmpty)
-        Detections.predicateSuccess(e, p) :: Nil //Nothing to do the parent is missing
+        predicateSuccess(e, p) //Nothing to do the parent is missing
       else {
-        lazy val l = contexts flatMap { c => Query.query(c, path).get }
+        lazy val l = contexts flatMap { c => Query.query(c, compiled).get }
         u match {
           case R if l.isEmpty =>
             contexts map { c =>
@@ -195,7 +226,7 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
             val usageErr = Detections.xusage(x.location).getDescription
             Detections.predicateFailure(x.location, usageErr, "not supported", p.description)
           }
-          case _ => Detections.predicateSuccess(e, p) :: Nil
+          case _ => predicateSuccess(e, p)
         }
       }
     } catch {
@@ -204,28 +235,36 @@ trait DefaultValidator extends Validator with expression.Evaluator with PatternF
         Detections.predicateSpecErr(e, p, JArrays.asList(trace)) :: Nil
     }
 
+  private def predicateSuccess(e: Element, p: Predicate)(implicit Detections : ConfigurableDetections): List[Entry] =
+    if (Detections.predicateSuccessReported) Detections.predicateSuccess(e, p) :: Nil else Nil
+
   /*
    * The target path needs to be reduced since no verification should
    * be done if the direct parent of the target is missing
    */
   @throws
-  private def reducePath(context: Element, target: String): (List[Element], String) =
-    target.lastIndexOf('.') match {
-      case -1 => (context :: Nil, target)
-      case i =>
-        val parentPath = target.take(i)
-        val path = target.drop(i + 1)
-        (Query.query(context, parentPath).get, path)
+  private def reducePath(context: Element, p: Predicate): (List[Element], CompiledPath) =
+    p.compiledTarget.get match {
+      case (None, path)         => (context :: Nil, path)
+      case (Some(parent), path) => (Query.query(context, parent).get, path)
     }
 
-  private def stackTrace(context: Element, stack: List[Trace]): JList[GTrace] =
-    (stack map { t =>
-      val assertion = expression.AsString.expression(t.expression, context)
-      val reasons = t.reasons map { r =>
-        s"[${r.location.line}, ${r.location.column}] ${r.message}"
-      }
-      new GTrace(assertion, reasons.asJava)
-    }).asJava
+  /**
+   * Returns the stack trace of the failure. The assertions are rendered
+   * when the trace is read, from the location of the context only.
+   */
+  private def stackTrace(context: Element, stack: List[Trace]): JList[GTrace] = {
+    val location = context.location
+    LazyEntry.traces { () =>
+      (stack map { t =>
+        val assertion = expression.AsString.expression(t.expression, location)
+        val reasons = t.reasons map { r =>
+          s"[${r.location.line}, ${r.location.column}] ${r.message}"
+        }
+        new GTrace(assertion, reasons.asJava)
+      }).asJava
+    }
+  }
 
   private def approximativeErrorLocation(context: Element, stack: List[Trace]) =
     stack match {
@@ -3,7 +3,6 @@ package hl7.v2.validation.content
 import gov.nist.validation.report.Entry
 import hl7.v2.instance.Message
 
-import scala.concurrent.ExecutionContext.Implicits.global
 import scala.concurrent.Future
 
 /**
@@ -24,5 +23,5 @@ trait EmptyValidator extends Validator {
     * @param m - The message to be checked
     * @return An empty list
     */
-  def checkContent(m: Message): Future[Seq[Entry]] = Future { Nil }
+  def checkContent(m: Message): Future[Seq[Entry]] = Future { Nil }(executionContext)
 }
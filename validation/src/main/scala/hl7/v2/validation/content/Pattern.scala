@@ -1,6 +1,9 @@
 package hl7.v2.validation.content
 
 import expression.Expression
+import hl7.v2.instance.CompiledPath
+
+import scala.util.Try
 
 case class Pattern (
   trigger : Trigger,
@@ -12,7 +15,13 @@ case class Pattern (
 case class Context (
   contextPath : String,
   Patterns    : List[Pattern]
-)
+) {
+
+  /**
+    * The compiled context path, a failure if the path is invalid
+    */
+  lazy val compiledContextPath: Try[CompiledPath] = Try( CompiledPath.compile(contextPath) )
+}
 
 case class Trigger (
   errorMessage : String,
@@ -26,7 +26,7 @@ trait PatternFinder extends expression.Evaluator {
   
   def checkContext(e: Element, c: Context, validator: (Element, Constraint) => List[Entry])(implicit s: Separators,
     dtz: Option[TimeZone], model: MM, Detections : ConfigurableDetections, VSValidator : hl7.v2.validation.vs.Validator): List[Entry] = {
-     query(e, c.contextPath) match {
+     c.compiledContextPath flatMap { query(e, _) } match {
       case Success(Nil) => missingContext(c,e)
       case Success(x)   => checkPatterns(x, c.Patterns,e, validator)
       case Failure(err) => List[Entry](Detections.cntSpecError(e, Constraint("Content",None,None,None,err.getMessage,Presence(c.contextPath)), err.getMessage,  Nil.asJava))
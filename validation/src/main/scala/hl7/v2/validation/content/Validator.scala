@@ -14,7 +14,7 @@ import hl7.v2.validation.report.ConfigurableDetections
   * @author Salifou Sidi M. Malick <salifou.sidi@gmail.com>
   */
 
-trait Validator {
+trait Validator extends hl7.v2.validation.Execution {
 
   /**
     * The conformance context used by this validator.
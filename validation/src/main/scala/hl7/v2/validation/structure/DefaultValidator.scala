@@ -6,7 +6,6 @@ import hl7.v2.instance._
 import hl7.v2.profile
 import hl7.v2.profile.{Range, Usage}
 
-import scala.concurrent.ExecutionContext.Implicits.global
 import scala.concurrent.Future
 import hl7.v2.validation.report.ConfigurableDetections
 
@@ -21,7 +20,17 @@ trait DefaultValidator extends Validator with EscapeSeqHandler {
     * @param m - The message to be checked
     * @return  - The list of problems
     */
-  def checkStructure(m: Message)(implicit Detections : ConfigurableDetections): Future[List[Entry]] = Future {
+  def checkStructure(m: Message)(implicit Detections : ConfigurableDetections): Future[List[Entry]] =
+    Future { checkStructureSync(m) }(executionContext)
+
+  /**
+    * Checks the message structure on the calling thread
+    * and returns the list of problems.
+    *
+    * @param m - The message to be checked
+    * @return  - The list of problems
+    */
+  def checkStructureSync(m: Message)(implicit Detections : ConfigurableDetections): List[Entry] = {
     implicit val s = m.separators
     invalid( m.invalid ) ::: unexpected(m.unexpected) ::: check(m.asGroup)
   }
@@ -59,13 +68,10 @@ trait DefaultValidator extends Validator with EscapeSeqHandler {
     * @return A list of problems found
     */
   private def check(c: Complex)(implicit s: Separators, Detections : ConfigurableDetections): List[Entry] = {
-    // Sort the children by position
-    val map = c.children.groupBy( x => x.position )
-
     // Check every position defined in the model
     val r = c.reqs.foldLeft( List[Entry]() ) { (acc, r) =>
       // Get the children at the current position (r.position)
-      val children = map.getOrElse(r.position, Nil)
+      val children = c.childrenAt(r.position)
 
       //FIXME we are missing the description here ...
       //val dl = c.location.copy(desc=r.description,
@@ -12,7 +12,7 @@ import hl7.v2.validation.report.ConfigurableDetections
   * @author Salifou Sidi M. Malick <salifou.sidi@gmail.com>
   */
 
-trait Validator {
+trait Validator extends hl7.v2.validation.Execution {
 
   /**
     * Checks the message structure and returns the list of problems.
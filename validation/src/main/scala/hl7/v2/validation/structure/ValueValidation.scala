@@ -2,11 +2,12 @@ package hl7.v2.validation.structure
 
 import gov.nist.validation.report.Entry
 import hl7.v2.instance._
-import hl7.v2.instance.util.ValueFormatCheckers._
 import hl7.v2.profile._
 import hl7.v2.profile.Usage
 import hl7.v2.validation.report.ConfigurableDetections
 
+import scala.util.Try
+
 object ValueValidation extends EscapeSeqHandler {
 
   def check(s: Simple)(implicit x: Separators, Detections: ConfigurableDetections): List[Entry] =
@@ -53,7 +54,7 @@ object ValueValidation extends EscapeSeqHandler {
 
   def checkRange(l: Location, v: Value, r: Option[Range])(implicit s: Separators, Detections: ConfigurableDetections): Option[Entry] =
     r flatMap { range =>
-      val raw = unescape(v.raw)
+      val raw = v.unescaped
       if (range includes raw.length) None
       else Some(Detections.length(l, range, raw))
     }
@@ -67,14 +68,19 @@ object ValueValidation extends EscapeSeqHandler {
    */
   def checkFormat(l: Location, v: Value)(implicit s: Separators, Detections: ConfigurableDetections): Option[Entry] =
     v match {
-      case Number(x) => checkNumber(x) map { m => Detections.format(l, m) }
-      case Date(x) => checkDate(x) map { m => Detections.format(l, m) }
-      case Time(x) => checkTime(x) map { m => Detections.format(l, m) }
-      case DateTime(x) => checkDateTime(x) map { m => Detections.format(l, m) }
+      case x: Number => formatError(x.asNumber) map { m => Detections.format(l, m) }
+      case x: Date => formatError(x.asDate) map { m => Detections.format(l, m) }
+      case x: Time => formatError(x.asTime) map { m => Detections.format(l, m) }
+      case x: DateTime => formatError(x.asDateTime) map { m => Detections.format(l, m) }
       case _ if containSeparators(v) && !l.path.equals("MSH-1") && !l.path.equals("MSH-2") => Some(Detections.unescaped(l))
       case _ => None
     }
 
+  /**
+   * Returns the error message of the typed form of a value if any
+   */
+  private def formatError(t: Try[_]): Option[String] = t.failed.toOption map (_.getMessage)
+
   /**
    * Returns true if the value contain unescaped
    * field, component or sub-component separator
@@ -0,0 +1,18 @@
+package expression;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hl7.v2.instance.Element;
+
+public class PluginCounter {
+
+	public static final AtomicInteger instances = new AtomicInteger();
+
+	public PluginCounter() {
+		instances.incrementAndGet();
+	}
+
+	public boolean assertion(Element e) {
+		return false;
+	}
+}
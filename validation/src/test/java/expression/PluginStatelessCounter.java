@@ -0,0 +1,21 @@
+package expression;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hl7.v2.instance.Element;
+import hl7.v2.validation.plugin.BooleanValidationPlugin;
+import hl7.v2.validation.plugin.StatelessPlugin;
+
+@StatelessPlugin
+public class PluginStatelessCounter implements BooleanValidationPlugin {
+
+	public static final AtomicInteger instances = new AtomicInteger();
+
+	public PluginStatelessCounter() {
+		instances.incrementAndGet();
+	}
+
+	public boolean assertion(Element e) {
+		return true;
+	}
+}
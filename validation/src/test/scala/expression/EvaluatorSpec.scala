@@ -58,6 +58,8 @@ trait EvaluatorSpec
       Format evaluation should fail If not present behavior is FAIL and no element is found  $formatNoElmFAIL
       Format evaluation should be inconclusive If not present behavior is INCONCLUSIVE and no element is found $formatNoElmINC
       Format evaluation should pass If not present behavior is PASS and no element is found $formatNoElmPASS
+      Format evaluation should be inconclusive if the regular expression is invalid        $formatInvalidRegex
+      Format evaluation should apply the not present behavior even if the regular expression is invalid $formatInvalidRegexNoElm
 
     StringListSpec
       StringList evaluation should succeed if the path is not populated            $stringListPathNotPopulated
@@ -177,6 +179,8 @@ trait EvaluatorSpec
       Plugin execution should pass if the assertion evaluation returns an empty list                    $pluginCustomPassEmpty
       Plugin execution should fail if the assertion evaluation returns non-empty list                   $pluginCustomPassEmpty
       Plugin execution should be inconclusive if the implementation contains multiple matching methods  $pluginMulti
+      A stateless plugin should be instantiated once                                                   $pluginStateless
+      A plugin which is not stateless should be instantiated for every evaluation                       $pluginStateful
     
     StringFormatSpec
       StringFormat should succeed if the path is not populated $stringFormatPathNotPopulated
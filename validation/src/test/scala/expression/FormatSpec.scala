@@ -20,6 +20,8 @@ trait FormatSpec extends Specification with Evaluator with Mocks {
       Format evaluation should fail If not present behavior is FAIL and no element is found  $formatNoElmFAIL
       Format evaluation should be inconclusive If not present behavior is INCONCLUSIVE and no element is found $formatNoElmINC
       Format evaluation should pass If not present behavior is PASS and no element is found $formatNoElmPASS
+      Format evaluation should be inconclusive if the regular expression is invalid        $formatInvalidRegex
+      Format evaluation should apply the not present behavior even if the regular expression is invalid $formatInvalidRegexNoElm
   */
 
   //c1.4[1] is not populated
@@ -64,4 +66,15 @@ trait FormatSpec extends Specification with Evaluator with Mocks {
     val e = Format("1[*]", "[A-Z0-9]+2", true)
     eval( e, c1 ) === Pass
   }
-}
\ No newline at end of file
+
+  def formatInvalidRegex = {
+    val e = Format("3[1]", "[A-Z")
+    eval( e, c1 ) === inconclusive(e, c1.location, scala.util.Try(e.regex).failed.get)
+  }
+
+  def formatInvalidRegexNoElm = {
+    val f = Format("4[1]", "[A-Z", false, "FAIL")
+    (eval(Format("4[1]", "[A-Z"), c1) === Pass) and
+      (eval(f, c1) === Failures.notPresentBehaviorFail(f, f.path, c1))
+  }
+}
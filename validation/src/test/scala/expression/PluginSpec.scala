@@ -14,6 +14,8 @@ trait PluginSpec extends Specification with Evaluator with Mocks {
       Plugin execution should pass if the assertion evaluation returns an empty list                            $pluginCustomPassEmpty
       Plugin execution should fail if the assertion evaluation returns non-empty list                            $pluginCustomPassEmpty
       Plugin execution should be inconclusive if the implementation contains multiple matching methods                            $pluginMulti
+      A stateless plugin should be instantiated once                                                   $pluginStateless
+      A plugin which is not stateless should be instantiated for every evaluation                       $pluginStateful
   */
 
   def pluginPass = eval( Plugin( "expression.PluginSuccess" ), c1 ) === Pass
@@ -30,4 +32,15 @@ trait PluginSpec extends Specification with Evaluator with Mocks {
   
   def pluginMulti = eval( Plugin( "expression.PluginFailureMulti" ), c1 ) must beLike { case Inconclusive(_) => ok }
 
+  def pluginStateless = {
+    val r = (1 to 3) map { _ => eval( Plugin( "expression.PluginStatelessCounter" ), c1 ) }
+    (r must contain(be_===(Pass: EvalResult)).forall) and (PluginStatelessCounter.instances.get === 1)
+  }
+
+  def pluginStateful = {
+    val before = PluginCounter.instances.get
+    val r = (1 to 3) map { _ => eval( Plugin( "expression.PluginCounter" ), c1 ) }
+    (r must contain(be_===(Fail(Nil): EvalResult)).forall) and (PluginCounter.instances.get === before + 3)
+  }
+
 }
@@ -18,6 +18,9 @@ class XMLDeserializationSpec extends Specification { def is = s2"""
     Deserialization of path value expression should work as expected      $pe2
     Deserialization of plain text expression should work as expected      $pe3
     Deserialization of format expression should work as expected          $pe4
+    Deserialization of format expression should fail if the regex is invalid $pe16
+    Deserialization of an expression should fail if a path is invalid      $pe17
+    Deserialization of plugin expression should fail if it cannot be resolved $pe18
     Deserialization of number list expression should work as expected     $pe5
     Deserialization of string list expression should work as expected     $pe6
     Deserialization of simple value expression should work as expected    $pe7
@@ -81,6 +84,20 @@ class XMLDeserializationSpec extends Specification { def is = s2"""
   def pe14 = expression( <FORALL><Presence Path="1[1]"/><Presence Path="2[2]"/></FORALL> ) === FORALL( Presence("1[1]"), Presence("2[2]") )
 
   def pe15 = expression( <isNULL  Path="1[1]"/> ) === isNULL("1[1]")
+
+  def pe16 = expression( <Format Path="1[1]" Regex="[A-Z"/> ) must
+    throwA[java.util.regex.PatternSyntaxException]
+
+  def pe17 =
+    (expression( <Presence Path="1"/> ) must throwA[Error]("Invalid Path '1'")) and
+    (expression( <PathValue Path1="1[1]" Operator="EQ" Path2="2[x]"/> ) must throwA[Error]("Invalid Path")) and
+    (expression( <NOT><isNULL Path="1[1]."/></NOT> ) must throwA[Error]("Invalid Path"))
+
+  def pe18 = {
+    val resolved = expression( <Plugin QualifiedClassName="expression.PluginSuccess"/> )
+    (resolved must beLike { case p: Plugin => p.resolved must beSuccessfulTry }) and
+    (expression( <Plugin QualifiedClassName="expression.Unknown"/> ) must throwA[ClassNotFoundException])
+  }
   
   private implicit def toXOM( e: scala.xml.Node ): nu.xom.Element = {
     val r = new nu.xom.Element( e.label )
@@ -0,0 +1,57 @@
+package hl7.v2.validation
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import hl7.v2.Timing
+import hl7.v2.profile.XMLDeserializer
+import hl7.v2.validation.vs.EmptyValueSetLibrary
+
+import scala.util.{Failure, Success}
+
+/**
+  * Measures the validation of a batch file with one
+  * thread and with one thread per available processor.
+  */
+object BatchValidationBenchmark extends App with Timing {
+
+  val xml = getClass.getResourceAsStream("/Profile.xml")
+
+  val profile = XMLDeserializer.deserialize( xml ) match {
+    case Success(p) => p
+    case Failure(e) => throw e
+  }
+
+  val m =
+    """/MSH|^~\&#|^XXX^ISO^qq|NIST Lab Facility^2.16.840.1.113883.3.72.5.21^ISO||NIST EHR Facility^2.16.840.1.113883.3.72.5.23^ISO|20110531140551-2400|||NIST-LRI-GU-001.00|T|2.5.1|||AL|NE
+      /PID|11111~2~3~1~""~4||PATID1234^^^NIST MPI&2.16.840.1.113883.3.72.5.30.2&ISO^MR||Jones^William^A^JR^^^L||19610615|M||2106-3^White^HL70005^CAUC^Caucasian^L
+      /ORC|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO
+      /OBR|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO|30341-2^Erythrocyte sedimentation rate^LN
+      /OBX|1|NM|1^Erythrocyte sedimentation rate^xx^815117^ESR^99USI||10|mm/h^millimeter per hour^UCUM|0 to 17|N|||F
+      /""".stripMargin('/')
+
+  val messages = 2000
+
+  val file = Files.createTempFile("batch", ".hl7")
+  file.toFile.deleteOnExit()
+  Files.write(file, (m * messages).getBytes(StandardCharsets.UTF_8))
+
+  val conformanceContext = content.DefaultConformanceContext().get
+
+  def validateFile(parallelism: Int): Int = {
+    val executor = ValidationExecutor(parallelism, 4 * parallelism)
+    try {
+      val validator = new HL7Validator(profile, EmptyValueSetLibrary.getInstance(),
+        conformanceContext, executor)
+      validator.validateFile(file, "ORU_R01", 2 * parallelism) { (_, r) => r.get }.get
+    } finally executor.shutdown()
+  }
+
+  val processors = Runtime.getRuntime.availableProcessors
+
+  // Warm up
+  validateFile(processors)
+
+  time(s"$messages messages, 1 thread") { validateFile(1) }
+  time(s"$messages messages, $processors threads") { validateFile(processors) }
+}
@@ -0,0 +1,78 @@
+package hl7.v2.validation
+
+import gov.nist.validation.report.Report
+import org.specs2.Specification
+
+import java.nio.file.Files
+import scala.collection.mutable.ListBuffer
+import scala.concurrent.Await
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+
+class BatchValidationSpec extends Specification with Helpers { def is = s2"""
+
+  Batch validation specification
+
+    The batch validation should return the reports in the input order         $e1
+    The batch validation should report failures without stopping               $e2
+    The batch validation should cap the number of messages in flight           $e3
+    The compiled batch validation should return the reports in the input order $e4
+    The synchronous batch validation should return the reports in order        $e5
+    The file validation should report the line numbers of the file             $e6
+  """
+
+  val validator = new HL7Validator(profile, vsLib, conformanceContext, ValidationExecutor(4, 64))
+
+  val messages = List.tabulate(50) { i => if (i % 3 == 0) m2 else m1 }
+
+  def expected = messages map { m =>
+    Await.result(validator.validate(m, "ORU_R01"), 10.seconds).toJson
+  }
+
+  def e1 = {
+    val actual = validator.validateAll(messages.iterator map { m => (m, "ORU_R01") }, 8)
+    actual.map(_.get.toJson).toList === expected
+  }
+
+  def e2 = {
+    val in = List((m1, "ORU_R01"), (m1, "XXX"), (m2, "ORU_R01"))
+    val actual = validator.validateAll(in.iterator, 2).toList
+    (actual.map(_.isSuccess) === List(true, false, true)) and
+      (actual(2).get.toJson === expected.head)
+  }
+
+  def e3 = {
+    var consumed = 0
+    val in = messages.iterator map { m => consumed += 1; (m, "ORU_R01") }
+    val actual = validator.validateAll(in, 4)
+    actual.next()
+    consumed must be_<=(5)
+  }
+
+  def e4 = {
+    val compiled = validator.compile("ORU_R01").get
+    compiled.validateAll(messages.iterator, 8).map(_.get.toJson).toList === expected
+  }
+
+  def e5 = {
+    val sync = new SyncHL7Validator(profile, vsLib, conformanceContext)
+    sync.checkAll(messages.asJava.iterator, "ORU_R01", 8).asScala.map(_.toJson).toList === expected
+  }
+
+  def e6 = {
+    val file = Files.createTempFile("batch", ".hl7")
+    try {
+      Files.write(file, s"FHS|^~\\&\rBHS|^~\\&\r$m1\r$m2\rBTS|2\rFTS|1".getBytes)
+      val results = ListBuffer[(Int, List[Int])]()
+      val count = validator.validateFile(file, "ORU_R01", 2) { (m, r) =>
+        results += m.firstLine -> lines(r.get)
+      }
+      val shifted = List(3 -> m1, 7 -> m2) map { case (first, m) =>
+        first -> lines(Await.result(validator.validate(m, "ORU_R01"), 10.seconds)).map(_ + first - 1)
+      }
+      (count must beSuccessfulTry(2)) and (results.toList === shifted)
+    } finally Files.delete(file)
+  }
+
+  def lines(r: Report) = r.getEntries.asScala.values.flatMap(_.asScala).map(_.getLine).toList.sorted
+}
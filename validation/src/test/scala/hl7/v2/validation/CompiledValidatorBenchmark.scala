@@ -0,0 +1,55 @@
+package hl7.v2.validation
+
+import hl7.v2.Timing
+import hl7.v2.profile.XMLDeserializer
+import hl7.v2.validation.vs.EmptyValueSetLibrary
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+import scala.util.{Failure, Success}
+
+/**
+  * Compares the validation of the same message using
+  * the per message setup and a compiled validator.
+  */
+object CompiledValidatorBenchmark extends App with Timing {
+
+  val xml = getClass.getResourceAsStream("/Profile.xml")
+
+  val profile = XMLDeserializer.deserialize( xml ) match {
+    case Success(p) => p
+    case Failure(e) => throw e
+  }
+
+  val m =
+    """/MSH|^~\&#|^XXX^ISO^qq|NIST Lab Facility^2.16.840.1.113883.3.72.5.21^ISO||NIST EHR Facility^2.16.840.1.113883.3.72.5.23^ISO|20110531140551-2400|||NIST-LRI-GU-001.00|T|2.5.1|||AL|NE
+      /PID|11111~2~3~1~""~4||PATID1234^^^NIST MPI&2.16.840.1.113883.3.72.5.30.2&ISO^MR||Jones^William^A^JR^^^L||19610615|M||2106-3^White^HL70005^CAUC^Caucasian^L
+      /ORC|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO
+      /OBR|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO|30341-2^Erythrocyte sedimentation rate^LN
+      /OBX|1|NM|1^Erythrocyte sedimentation rate^xx^815117^ESR^99USI||10|mm/h^millimeter per hour^UCUM|0 to 17|N|||F
+      /""".stripMargin('/')
+
+  val conformanceContext = content.DefaultConformanceContext().get
+
+  val valueSetLibrary = EmptyValueSetLibrary.getInstance()
+
+  val validator = new HL7Validator(profile, valueSetLibrary, conformanceContext)
+  val compiled  = validator.compile("ORU_R01").get
+
+  val iterations = 2000
+
+  // Warm up
+  1 to 200 foreach { _ => Await.result(compiled.validate(m), 10.seconds) }
+
+  time("Validator.validate") {
+    1 to iterations foreach { _ =>
+      Await.result(validator.validate(m, "ORU_R01"), 10.seconds)
+    }
+  }
+
+  time("CompiledValidator.validate") {
+    1 to iterations foreach { _ =>
+      Await.result(compiled.validate(m), 10.seconds)
+    }
+  }
+}
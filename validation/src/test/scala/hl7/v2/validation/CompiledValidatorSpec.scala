@@ -0,0 +1,44 @@
+package hl7.v2.validation
+
+import org.specs2.Specification
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+class CompiledValidatorSpec extends Specification with Helpers { def is = s2"""
+
+  Compiled validator specification
+
+    Compiling an undefined message id should fail                              $e1
+    A compiled validator should produce the same report as the validator      $e2
+    A compiled validator should be reusable across validations                $e3
+    A validator building the segments lazily should produce the same report   $e4
+  """
+
+  val validator = new HL7Validator(profile, vsLib, conformanceContext)
+
+  def e1 = validator.compile("XXX") must beFailedTry
+
+  def e2 = {
+    val compiled = validator.compile("ORU_R01").get
+    val expected = Await.result(validator.validate(m2, "ORU_R01"), 10.seconds)
+    val actual   = Await.result(compiled.validate(m2), 10.seconds)
+    actual.toJson === expected.toJson
+  }
+
+  def e3 = {
+    val compiled = validator.compile("ORU_R01").get
+    val reports = List(m1, m2, m1) map { m =>
+      Await.result(compiled.validate(m), 10.seconds).toJson
+    }
+    (reports.head === reports(2)) and (reports.head !== reports(1))
+  }
+
+  def e4 = {
+    val lazyValidator = new HL7Validator(profile, vsLib, conformanceContext) { override def lazySegments = true }
+    List(m1, m2) map { m =>
+      Await.result(lazyValidator.validate(m, "ORU_R01"), 10.seconds).toJson ===
+        Await.result(validator.validate(m, "ORU_R01"), 10.seconds).toJson
+    }
+  }
+}
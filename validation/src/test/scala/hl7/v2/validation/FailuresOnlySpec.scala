@@ -0,0 +1,47 @@
+package hl7.v2.validation
+
+import java.io.StringReader
+
+import gov.nist.validation.report.{ Entry, Report }
+import hl7.v2.profile.XMLDeserializer
+import hl7.v2.validation.content.{ CompiledConformanceContextSpec, DefaultConformanceContext }
+import hl7.v2.validation.vs.EmptyValueSetLibrary
+import org.specs2.Specification
+
+import scala.jdk.CollectionConverters._
+
+class FailuresOnlySpec extends Specification { def is = s2"""
+
+  Failures only report specification
+
+    The default report should contain the success detections                  $f1
+    The failures only report should be the default one without the successes  $f2
+    The entries with an ignored classification should be left out             $f3
+  """
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+
+  val context = DefaultConformanceContext( getClass.getResourceAsStream("/rules/Lookups.xml") ).get
+
+  val validator = new SyncHL7Validator(profile, EmptyValueSetLibrary.getInstance(), context)
+
+  val message = CompiledConformanceContextSpec.message
+
+  def entries(r: Report): List[Entry] = r.getEntries.asScala.values.flatMap(_.asScala).toList
+
+  def check(configuration: String): Report =
+    validator.checkUsingConfiguration(message, "ORU_R01", new StringReader(configuration))
+
+  val default = entries( validator.check(message, "ORU_R01") )
+
+  def isSuccess(e: Entry) = e.getClassification == "Affirmative"
+
+  def f1 = (default exists isSuccess) and (default exists { e => !isSuccess(e) })
+
+  def f2 = entries( check("report.failures-only = true") ) === default.filterNot(isSuccess)
+
+  def f3 = {
+    val r = entries( check("report.ignored-classifications = [ Affirmative, Warning ]") )
+    r === default.filterNot(e => isSuccess(e) || e.getClassification == "Warning")
+  }
+}
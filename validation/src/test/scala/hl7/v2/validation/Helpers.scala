@@ -0,0 +1,32 @@
+package hl7.v2.validation
+
+import hl7.v2.profile.{ Profile, XMLDeserializer }
+import hl7.v2.validation.content.EmptyConformanceContext
+import hl7.v2.validation.vs.EmptyValueSetLibrary
+
+/**
+  * The ORU_R01 profile and messages shared by the validator specifications
+  */
+trait Helpers {
+
+  val profile: Profile = {
+    val xml = getClass.getResourceAsStream("/ORU_R01_Profile.xml")
+    val r = XMLDeserializer.deserialize( xml )
+    assert(r.isSuccess, "[Error] An error occurred while creating the profile.")
+    r.get
+  }
+
+  val vsLib = EmptyValueSetLibrary.getInstance()
+
+  val conformanceContext = EmptyConformanceContext
+
+  val m1 = """/MSH|^~\&#
+              /PID|11||~^^^&3.4.2
+              /UAC
+              /UAC""".stripMargin('/')
+
+  val m2 = """/MSH|^~\&#
+              /PID|11||~^^^&3.4.2|x^^^^^^^^^^^^
+              /UAC
+              /ZZZ""".stripMargin('/')
+}
@@ -0,0 +1,72 @@
+package hl7.v2.validation
+
+import java.util.concurrent.{ CountDownLatch, RejectedExecutionException, TimeUnit }
+
+import org.specs2.Specification
+
+import scala.concurrent.{ Await, Future }
+import scala.concurrent.duration._
+import scala.util.Try
+
+class ValidationExecutorSpec extends Specification with Helpers { def is = s2"""
+
+  Validation executor specification
+
+    A validator using a dedicated executor should produce the same report       $e1
+    The executor should report the queue depth and the active tasks             $e2
+    The abort policy should fail the submission when the queue is full          $e3
+    The caller runs policy should run the task on the submitting thread         $e4
+  """
+
+  def e1 = {
+    val executor = ValidationExecutor(2, 16)
+    val v1 = new HL7Validator(profile, vsLib, conformanceContext)
+    val v2 = new HL7Validator(profile, vsLib, conformanceContext, executor)
+    val expected = Await.result(v1.validate(m2, "ORU_R01"), 10.seconds).toJson
+    val actual   = Await.result(v2.validate(m2, "ORU_R01"), 10.seconds).toJson
+    executor.shutdown()
+    (actual === expected) and (executor.completedCount must be_>(0L))
+  }
+
+  def e2 = {
+    val executor = ValidationExecutor(1, 4)
+    val started = new CountDownLatch(1)
+    val release = new CountDownLatch(1)
+    executor.execute(() => { started.countDown(); release.await() })
+    executor.execute(() => ())
+    executor.execute(() => ())
+    started.await(5, TimeUnit.SECONDS)
+    val metrics = executor.metrics
+    release.countDown()
+    executor.shutdown()
+    executor.awaitTermination(5, TimeUnit.SECONDS)
+    (metrics.active === 1) and (metrics.queueDepth === 2) and
+      (executor.completedCount === 3L)
+  }
+
+  def e3 = {
+    val executor = ValidationExecutor(1, 1, RejectionPolicy.Abort)
+    val release = new CountDownLatch(1)
+    executor.execute(() => release.await())
+    executor.execute(() => ())
+    val r = Try(executor.execute(() => ()))
+    val f = Future { 1 }(executor)
+    release.countDown()
+    executor.shutdown()
+    (r.failed.get must beAnInstanceOf[RejectedExecutionException]) and
+      (Await.ready(f, 5.seconds).value.get.failed.get must beAnInstanceOf[RejectedExecutionException]) and
+      (executor.rejectedCount === 2L)
+  }
+
+  def e4 = {
+    val executor = ValidationExecutor(1, 1, RejectionPolicy.CallerRuns)
+    val release = new CountDownLatch(1)
+    executor.execute(() => release.await())
+    executor.execute(() => ())
+    var thread: Thread = null
+    executor.execute(() => thread = Thread.currentThread())
+    release.countDown()
+    executor.shutdown()
+    (thread === Thread.currentThread()) and (executor.rejectedCount === 1L)
+  }
+}
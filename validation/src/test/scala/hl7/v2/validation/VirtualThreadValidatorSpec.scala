@@ -0,0 +1,76 @@
+package hl7.v2.validation
+
+import java.util.concurrent.TimeoutException
+
+import hl7.v2.instance.Message
+import hl7.v2.validation.report.ConfigurableDetections
+import hl7.v2.validation.vs.Validator
+import org.specs2.Specification
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+import scala.util.Try
+
+class VirtualThreadValidatorSpec extends Specification with Helpers { def is = s2"""
+
+  Virtual thread validator specification
+
+    The forked validation should produce the same report as the validator      $e1
+    The sequential validation should produce the same report as the validator  $e2
+    An undefined message id should fail                                        $e3
+    A validation exceeding the deadline should fail with a timeout             $e4
+    A forked validation exceeding the deadline should fail without waiting     $e5
+    A sequential validation should only fail once the running check is done   $e6
+  """
+
+  val expected = {
+    val v = new HL7Validator(profile, vsLib, conformanceContext)
+    Await.result(v.validate(m2, "ORU_R01"), 10.seconds).toJson
+  }
+
+  def e1 = {
+    val v = new VirtualThreadHL7Validator(profile, vsLib, conformanceContext)
+    v.check(m2, "ORU_R01").toJson === expected
+  }
+
+  def e2 = {
+    val v = new VirtualThreadHL7Validator(profile, vsLib, conformanceContext, 10.seconds, false)
+    v.check(m2, "ORU_R01").toJson === expected
+  }
+
+  def e3 = {
+    val v = new VirtualThreadHL7Validator(profile, vsLib, conformanceContext)
+    Try(v.check(m2, "XXX")) must beFailedTry
+  }
+
+  def e4 = {
+    val v = new VirtualThreadHL7Validator(profile, vsLib, conformanceContext, 10.seconds, false)
+    Try(v.check(m2, "ORU_R01", Duration.Zero)).failed.get must beAnInstanceOf[TimeoutException]
+  }
+
+  def e5 = {
+    val v = new VirtualThreadHL7Validator(profile, vsLib, conformanceContext, 200.millis, true) {
+      override def checkContentSync(m: Message)(implicit d: ConfigurableDetections, vs: Validator) = {
+        Thread.sleep(3000)
+        super.checkContentSync(m)
+      }
+    }
+    val t0 = System.nanoTime()
+    val r = Try(v.check(m2, "ORU_R01"))
+    val elapsed = (System.nanoTime() - t0).nanos
+    (r.failed.get must beAnInstanceOf[TimeoutException]) and (elapsed.toMillis must be_<(2000L))
+  }
+
+  def e6 = {
+    val v = new VirtualThreadHL7Validator(profile, vsLib, conformanceContext, 200.millis, false) {
+      override def checkContentSync(m: Message)(implicit d: ConfigurableDetections, vs: Validator) = {
+        Thread.sleep(500)
+        super.checkContentSync(m)
+      }
+    }
+    val t0 = System.nanoTime()
+    val r = Try(v.check(m2, "ORU_R01"))
+    val elapsed = (System.nanoTime() - t0).nanos
+    (r.failed.get must beAnInstanceOf[TimeoutException]) and (elapsed.toMillis must be_>=(500L))
+  }
+}
@@ -0,0 +1,109 @@
+package hl7.v2.validation.content
+
+import hl7.v2.instance.{Complex, Element}
+import hl7.v2.parser.impl.DefaultParser
+import hl7.v2.profile.XMLDeserializer
+import hl7.v2.validation.SyncHL7Validator
+import hl7.v2.validation.vs.EmptyValueSetLibrary
+import org.specs2.Specification
+
+class CompiledConformanceContextSpec extends Specification with DefaultParser { def is = s2"""
+
+  Compiled conformance context specification
+
+    The constraints should be the ones of the default context without duplicates   $c1
+    The predicates should be the ones of the default context without duplicates    $c2
+    The co-constraints should be the ones of the default context without duplicates $c3
+    The lookups of models outside the profile should be compiled on demand         $c4
+    A context compiled on demand should match the one compiled upfront             $c8
+    The constraints defined by name and by ID should be merged once               $c5
+    A subtree should be pruned only if it has no specification                    $c6
+    Pruning should not change the content validation report                       $c7
+  """
+
+  import CompiledConformanceContextSpec._
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+
+  val default = DefaultConformanceContext( getClass.getResourceAsStream("/rules/Lookups.xml") )
+    .get.asInstanceOf[DefaultConformanceContext]
+
+  val compiled = default.compile(profile)
+
+  val elements = elementsOf( parse(message, profile.messages("ORU_R01")).get.asGroup )
+
+  def c1 = (elements exists { default.constraintsFor(_).nonEmpty }) and
+    (elements map { e => compiled.constraintsFor(e) === default.constraintsFor(e).distinct })
+
+  def c2 = (elements exists { default.predicatesFor(_).nonEmpty }) and
+    (elements map { e => compiled.predicatesFor(e) === default.predicatesFor(e).distinct })
+
+  def c3 = elements map { e => compiled.coConstraintsFor(e) === default.coConstraintsFor(e).distinct }
+
+  def c5 = {
+    val hd = elements.find( e => e.location.path == "MSH-4" ).get
+    (default.constraintsFor(hd).map(_.id) === List("HD-1", "HD-1", "HD-2")) and
+      (compiled.constraintsFor(hd).map(_.id) === List("HD-1", "HD-2"))
+  }
+
+  def hasSpecs(e: Element) = default.constraintsFor(e).nonEmpty ||
+    default.predicatesFor(e).nonEmpty || default.coConstraintsFor(e).nonEmpty
+
+  def c6 = {
+    val pruned = elements filterNot compiled.isRelevant
+    (pruned must not be empty) and
+      (pruned map { e => elementsOf(e) exists hasSpecs must beFalse }) and
+      (elements filter hasSpecs map { compiled.isRelevant(_) must beTrue })
+  }
+
+  def c7 = {
+    val unpruned = new ConformanceContext {
+      def constraintsFor(e: Element) = default.constraintsFor(e).distinct
+      def predicatesFor(e: Element) = default.predicatesFor(e).distinct
+      def coConstraintsFor(e: Element) = default.coConstraintsFor(e).distinct
+      def orderIndifferentConstraints() = default.orderIndifferentConstraints()
+      def coConstraintsF() = default.coConstraintsF()
+    }
+    val library = EmptyValueSetLibrary.getInstance()
+    val expected = new SyncHL7Validator(profile, library, unpruned).check(message, "ORU_R01")
+    val actual = new SyncHL7Validator(profile, library, default).check(message, "ORU_R01")
+    (actual.toJson === expected.toJson) and (actual.getEntries.get("content").size must be_>(0))
+  }
+
+  def c4 = {
+    val other = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+    val es = elementsOf( parse(message, other.messages("ORU_R01")).get.asGroup )
+    es map { e =>
+      (compiled.constraintsFor(e) === default.constraintsFor(e).distinct) and
+        (compiled.predicatesFor(e) === default.predicatesFor(e).distinct) and
+        (compiled.isRelevant(e) || !(elementsOf(e) exists hasSpecs) must beTrue)
+    }
+  }
+
+  def c8 = {
+    val onDemand = default.compile()
+    elements map { e =>
+      (onDemand.constraintsFor(e) === compiled.constraintsFor(e)) and
+        (onDemand.predicatesFor(e) === compiled.predicatesFor(e)) and
+        (onDemand.coConstraintsFor(e) === compiled.coConstraintsFor(e)) and
+        (onDemand.isRelevant(e) === compiled.isRelevant(e))
+    }
+  }
+}
+
+object CompiledConformanceContextSpec {
+
+  val message =
+    """/MSH|^~\&#|^XXX^ISO^qq|NIST Lab Facility^2.16.840.1.113883.3.72.5.21^ISO||NIST EHR Facility^2.16.840.1.113883.3.72.5.23^ISO|20110531140551-2400|||NIST-LRI-GU-001.00|T|2.5.1|||AL|NE
+      /PID|11111~2~3~1~""~4||PATID1234^^^NIST MPI&2.16.840.1.113883.3.72.5.30.2&ISO^MR||Jones^William^A^JR^^^L||19610615|M||2106-3^White^HL70005^CAUC^Caucasian^L
+      /ORC|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO
+      /OBR|1|ORD723222^NIST EHR^2.16.840.1.113883.3.72.5.24^ISO|R-783274^NIST Lab Filler^2.16.840.1.113883.3.72.5.25^ISO|30341-2^Erythrocyte sedimentation rate^LN
+      /NTE|1||Comment
+      /OBX|1|NM|1^Erythrocyte sedimentation rate^xx^815117^ESR^99USI||10|mm/h^millimeter per hour^UCUM|0 to 17|N|||F
+      /""".stripMargin('/')
+
+  def elementsOf(e: Element): List[Element] = e match {
+    case c: Complex => e :: c.children.flatMap(elementsOf)
+    case _          => List(e)
+  }
+}
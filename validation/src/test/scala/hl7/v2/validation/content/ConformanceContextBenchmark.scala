@@ -0,0 +1,48 @@
+package hl7.v2.validation.content
+
+import hl7.v2.Timing
+import hl7.v2.parser.impl.DefaultParser
+import hl7.v2.profile.XMLDeserializer
+
+/**
+  * Measures the constraint, predicate and co-constraint lookups
+  * of the default and compiled conformance contexts
+  */
+object ConformanceContextBenchmark extends App with DefaultParser with Timing {
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+
+  val default = DefaultConformanceContext( getClass.getResourceAsStream("/rules/Lookups.xml") )
+    .get.asInstanceOf[DefaultConformanceContext]
+
+  val compiled = default.compile(profile)
+
+  val elements = CompiledConformanceContextSpec.elementsOf(
+    parse(CompiledConformanceContextSpec.message, profile.messages("ORU_R01")).get.asGroup ).toArray
+
+  val iterations = 20000
+
+  def lookups(c: ConformanceContext): Int = {
+    var n = 0
+    var i = 0
+    while (i < iterations) {
+      var j = 0
+      while (j < elements.length) {
+        val e = elements(j)
+        if (c.constraintsFor(e).nonEmpty) n += 1
+        if (c.predicatesFor(e).nonEmpty) n += 1
+        if (c.coConstraintsFor(e).nonEmpty) n += 1
+        j += 1
+      }
+      i += 1
+    }
+    n
+  }
+
+  println(s"${elements.length} elements, $iterations iterations")
+  1 to 3 foreach { _ =>
+    lookups(default); lookups(compiled)
+    time("Default conformance context")  { lookups(default) }
+    time("Compiled conformance context") { lookups(compiled) }
+  }
+}
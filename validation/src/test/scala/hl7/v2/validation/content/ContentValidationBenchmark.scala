@@ -0,0 +1,60 @@
+package hl7.v2.validation.content
+
+import com.typesafe.config.ConfigFactory
+import hl7.v2.Timing
+import hl7.v2.instance.Element
+import hl7.v2.profile.XMLDeserializer
+import hl7.v2.validation.SyncHL7Validator
+import hl7.v2.validation.report.ConfigurableDetections
+import hl7.v2.validation.vs.{EmptyValueSetLibrary, Validator}
+
+/**
+  * Measures the content validation of a lab message with and without
+  * the pruning of the subtrees which have no specification, and when
+  * only the failures are reported
+  */
+object ContentValidationBenchmark extends App with Timing {
+
+  val profile = XMLDeserializer.deserialize( getClass.getResourceAsStream("/Profile.xml") ).get
+
+  val default = DefaultConformanceContext( getClass.getResourceAsStream("/rules/Lookups.xml") )
+    .get.asInstanceOf[DefaultConformanceContext]
+
+  // Not a default conformance context, the validator does not compile it
+  val unpruned = new ConformanceContext {
+    private val compiled = default.compile(profile)
+    def constraintsFor(e: Element) = compiled.constraintsFor(e)
+    def predicatesFor(e: Element) = compiled.predicatesFor(e)
+    def coConstraintsFor(e: Element) = compiled.coConstraintsFor(e)
+    def orderIndifferentConstraints() = default.orderIndifferentConstraints()
+    def coConstraintsF() = default.coConstraintsF()
+  }
+
+  val detections = new ConfigurableDetections(ConfigFactory.load())
+  val failuresOnly = new ConfigurableDetections(
+    ConfigFactory.parseString("report.failures-only = true").withFallback(ConfigFactory.load()))
+
+  val library = EmptyValueSetLibrary.getInstance()
+  val pruned  = new SyncHL7Validator(profile, library, default)
+  val full    = new SyncHL7Validator(profile, library, unpruned)
+
+  val obx = CompiledConformanceContextSpec.message.linesIterator.filter(_ startsWith "OBX").next()
+  val text = CompiledConformanceContextSpec.message.trim + "\r" + (Seq.fill(500)(obx) mkString "\r")
+  val message = pruned.parse(text, profile.messages("ORU_R01")).get
+
+  val iterations = 50
+
+  def run(v: SyncHL7Validator, d: ConfigurableDetections = detections): Int = {
+    val vsValidator = new Validator(d)
+    (1 to iterations).foldLeft(0) { (n, _) => n + v.checkContentSync(message)(d, vsValidator).size }
+  }
+
+  println(s"500 OBX, $iterations iterations")
+  println(s"${run(pruned) / iterations} entries, ${run(pruned, failuresOnly) / iterations} failures")
+  1 to 3 foreach { _ =>
+    run(full); run(pruned); run(pruned, failuresOnly)
+    time("Content validation without pruning") { run(full) }
+    time("Content validation with pruning")    { run(pruned) }
+    time("Content validation, failures only")  { run(pruned, failuresOnly) }
+  }
+}
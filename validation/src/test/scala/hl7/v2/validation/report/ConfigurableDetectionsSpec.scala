@@ -0,0 +1,65 @@
+package hl7.v2.validation.report
+
+import java.io.StringReader
+
+import com.typesafe.config.ConfigFactory
+import hl7.v2.instance.{EType, Location}
+import hl7.v2.profile.Range
+import hl7.v2.validation.Validator
+import org.specs2.Specification
+
+import scala.jdk.CollectionConverters._
+
+class ConfigurableDetectionsSpec extends Specification { def is = s2"""
+
+  Configurable detections specification
+
+    A template should be rendered as with String.format                       $d1
+    A template with other format specifiers should use String.format          $d2
+    The detections should use the templates of the configuration              $d3
+    The default detections should be created once                             $d4
+    The detections of a configuration should be cached by its text            $d5
+  """
+
+  val loc = Location(EType.Field, "The description", "PID-3", 2, 10)
+
+  def d1 = {
+    val templates = ConfigFactory.load().getConfig("report").entrySet().asScala.toList collect {
+      case e if e.getKey.endsWith(".template") => e.getValue.unwrapped.toString
+    }
+    val args: Array[Object] = Array("a", Int.box(1), null, "%s", "d")
+    (templates must not be empty) and
+      (templates map { t => new Template(t).render(args: _*) === String.format(t, args: _*) }) and
+      (new Template("100%% of %s").render("x") === "100% of x")
+  }
+
+  def d2 = {
+    val t = new Template("%2$s then %1$s, %3$d")
+    (t.render("a", "b", Int.box(3)) === "b then a, 3") and
+      (new Template("%s and %s").render("a") must throwA[java.util.MissingFormatArgumentException])
+  }
+
+  def d3 = {
+    val conf = ConfigFactory.parseString(
+      """report.r-usage.template = "Missing: %s"
+        |report.r-usage.classification = "Custom"""".stripMargin).withFallback(ConfigFactory.load()).resolve()
+    val d = new ConfigurableDetections(conf)
+    val default = ConfigurableDetections.defaults()
+    val e = d.rusage(loc)
+    (e.getDescription === s"Missing: ${loc.prettyString}") and
+      (e.getClassification === "Custom") and
+      (e.getCategory === default.rusage(loc).getCategory) and
+      (d.cardinality(loc, Range(1, "2"), 3).getDescription === default.cardinality(loc, Range(1, "2"), 3).getDescription)
+  }
+
+  def d4 = ConfigurableDetections.defaults() must beTheSameAs(ConfigurableDetections.defaults())
+
+  def d5 = {
+    def detections(s: String) = Validator.detections(new StringReader(s))
+    val c1 = "report.r-usage.classification = Cached1"
+    val c2 = "report.r-usage.classification = Cached2"
+    (detections(c1) must beTheSameAs(detections(c1))) and
+      (detections(c1) must not(beTheSameAs(detections(c2)))) and
+      (detections(c2).rusage(loc).getClassification === "Cached2")
+  }
+}
@@ -0,0 +1,73 @@
+package hl7.v2.validation.report
+
+import java.io.StringReader
+
+import hl7.v2.Timing
+import hl7.v2.instance.{EType, Location}
+import hl7.v2.profile.Range
+import hl7.v2.validation.Validator
+
+/**
+  * Measures the creation of the structure detections with the compiled
+  * templates of the configurable detections and with the configuration
+  * lookups of the static detections, the creation of the entries whose
+  * description is never read, and the reading of a configuration
+  */
+object DetectionsBenchmark extends App with Timing {
+
+  val loc = Location(EType.Field, "Patient Identifier List", "PID-3", 2, 10, "PID[1]-3[2]")
+  val range = Range(1, "2")
+  val detections = ConfigurableDetections.defaults()
+
+  val iterations = 200000
+
+  def compiled(): Int = {
+    var n = 0
+    var i = 0
+    while (i < iterations) {
+      n += detections.rusage(loc).getDescription.length
+      n += detections.cardinality(loc, range, 3).getDescription.length
+      n += detections.length(loc, range, "value").getDescription.length
+      i += 1
+    }
+    n
+  }
+
+  def unread(): Int = {
+    var n = 0
+    var i = 0
+    while (i < iterations) {
+      n += detections.rusage(loc).getCategory.length
+      n += detections.cardinality(loc, range, 3).getCategory.length
+      n += detections.length(loc, range, "value").getCategory.length
+      i += 1
+    }
+    n
+  }
+
+  def lookups(): Int = {
+    var n = 0
+    var i = 0
+    while (i < iterations) {
+      n += Detections.rusage(loc).getDescription.length
+      n += Detections.cardinality(loc, range, 3).getDescription.length
+      n += Detections.length(loc, range, "value").getDescription.length
+      i += 1
+    }
+    n
+  }
+
+  val configuration = "report.r-usage.classification = Warning"
+
+  def configurations(): Int =
+    (1 to 1000).foldLeft(0) { (n, _) => n + Validator.detections(new StringReader(configuration)).hashCode }
+
+  println(s"3 detections x $iterations")
+  1 to 3 foreach { _ =>
+    lookups(); compiled(); unread()
+    time("Configuration lookups") { lookups() }
+    time("Compiled templates")    { compiled() }
+    time("Descriptions not read") { unread() }
+    time("1000 configurations")   { configurations() }
+  }
+}
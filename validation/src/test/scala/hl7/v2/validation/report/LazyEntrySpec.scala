@@ -0,0 +1,74 @@
+package hl7.v2.validation.report
+
+import java.util.Arrays
+import java.util.concurrent.atomic.AtomicInteger
+
+import gov.nist.validation.report.Trace
+import gov.nist.validation.report.impl.EntryImpl
+import hl7.v2.instance.{EType, Location}
+import hl7.v2.profile.Range
+import org.specs2.Specification
+
+class LazyEntrySpec extends Specification { def is = s2"""
+
+  Lazy entry specification
+
+    The description should be rendered once when it is first read             $l1
+    An entry with a rendered description should equal the lazy one           $l2
+    A lazy entry should render as the default entry but never equal it        $l3
+    The detections should be the ones of the static detections                $l4
+    An alert should keep the description of the entry                        $l5
+    A lazy stack trace should be rendered once when it is first read         $l6
+  """
+
+  val loc = Location(EType.Field, "Patient Identifier List", "PID-3", 2, 10, "PID[1]-3[2]")
+
+  val traces = Arrays.asList(new Trace("PID-3[1] is valued", Arrays.asList("[2, 10] Failure")))
+
+  def l1 = {
+    val count = new AtomicInteger
+    val e = new LazyEntry(2, 10, "PID[1]-3[2]", () => { count.incrementAndGet(); "Description" },
+      "Category", "Error", null, null)
+    val before = count.get
+    (before === 0) and (e.getDescription === "Description") and
+      (e.getDescription === "Description") and (count.get === 1)
+  }
+
+  def l2 = {
+    val rendered = new LazyEntry(2, 10, "PID[1]-3[2]", "Description", "Category", "Error", traces, null)
+    val e = new LazyEntry(2, 10, "PID[1]-3[2]", () => "Description", "Category", "Error", traces, null)
+    (e.equals(rendered) must beTrue) and (rendered.equals(e) must beTrue) and
+      (e.hashCode === rendered.hashCode) and (rendered.getDescription === "Description")
+  }
+
+  def l3 = {
+    val default = new EntryImpl(2, 10, "PID[1]-3[2]", "Description", "Category", "Error", traces, null)
+    val e = new LazyEntry(2, 10, "PID[1]-3[2]", () => "Description", "Category", "Error", traces, null)
+    (e.equals(default) must beFalse) and (default.equals(e) must beFalse) and
+      (e.hashCode === default.hashCode) and
+      (e.toText === default.toText) and (e.toJson === default.toJson)
+  }
+
+  def l4 = {
+    val d = ConfigurableDetections.defaults()
+    (d.rusage(loc) must beAnInstanceOf[LazyEntry]) and
+      (d.rusage(loc) === Detections.rusage(loc)) and
+      (d.cardinality(loc, Range(1, "2"), 3) === Detections.cardinality(loc, Range(1, "2"), 3)) and
+      (d.length(loc, Range(1, "2"), "value") === Detections.length(loc, Range(1, "2"), "value"))
+  }
+
+  def l5 = {
+    val d = ConfigurableDetections.defaults()
+    val e = d.rusage(loc)
+    val a = d.toAlert(e)
+    (a.getDescription === e.getDescription) and (a.getClassification === "Alert") and
+      (a.getPath === e.getPath)
+  }
+
+  def l6 = {
+    val count = new AtomicInteger
+    val t = LazyEntry.traces(() => { count.incrementAndGet(); traces })
+    val before = count.get
+    (before === 0) and (t.size === 1) and (t.get(0) === traces.get(0)) and (count.get === 1)
+  }
+}